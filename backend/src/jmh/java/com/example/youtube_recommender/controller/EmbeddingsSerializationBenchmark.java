@@ -0,0 +1,102 @@
+package com.example.youtube_recommender.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The non-model work of POST /api/embeddings: text clean-up on the way in and
+ * float[] -> JSON / base64 / raw float32 on the way out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmbeddingsSerializationBenchmark {
+
+    @Param({"16", "128"})
+    int batchSize;
+
+    @Param({"768"})
+    int dimensions;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    List<String> texts;
+    List<float[]> outputs;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        texts = new ArrayList<>(batchSize);
+        outputs = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            texts.add(randomText(random, 2_000));
+            float[] v = new float[dimensions];
+            for (int d = 0; d < dimensions; d++) v[d] = (float) random.nextGaussian();
+            outputs.add(v);
+        }
+    }
+
+    @Benchmark
+    public List<String> sanitizeAndTruncate() {
+        List<String> cleaned = new ArrayList<>(texts.size());
+        for (String s : texts) {
+            cleaned.add(EmbeddingsController.enforceMaxChars(EmbeddingsController.sanitizeForRag(s), 1_000));
+        }
+        return cleaned;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> toResponseItems() {
+        return EmbeddingsController.toEmbeddingItems(outputs);
+    }
+
+    @Benchmark
+    public String serializeResponse() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", outputs.size());
+        response.put("dimension", dimensions);
+        response.put("embeddings", EmbeddingsController.toEmbeddingItems(outputs));
+        return objectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public String serializeBase64Response() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", outputs.size());
+        response.put("dimension", dimensions);
+        response.put("embeddings", EmbeddingsController.toBase64Items(outputs));
+        return objectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public byte[] serializeBinaryResponse() {
+        return EmbeddingsController.toFloat32Le(outputs, dimensions);
+    }
+
+    private static String randomText(Random random, int length) {
+        String alphabet = "abcdefghijklmnopqrstuvwxyz      \n\t.,!?";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return sb.toString();
+    }
+}
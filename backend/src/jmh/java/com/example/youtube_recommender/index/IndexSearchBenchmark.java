@@ -0,0 +1,99 @@
+package com.example.youtube_recommender.index;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k retrieval over a fixed synthetic corpus: brute-force scan vs HNSW vs the int8 store.
+ * k = 4 is what the recommendation endpoint asks for; k = 200 is a typical candidate-generation size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexSearchBenchmark {
+
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"20000"})
+    int corpusSize;
+
+    @Param({"768"})
+    int dimensions;
+
+    @Param({"4", "200"})
+    int k;
+
+    HnswIndex hnsw;
+    QuantizedEmbeddingStore int8;
+    Path int8File;
+    float[][] queries;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        hnsw = new HnswIndex(16, 200, Math.max(64, k));
+        int8File = Files.createTempFile("bench-embeddings", ".q8");
+        int8 = QuantizedEmbeddingStore.create(int8File, dimensions);
+        for (int ordinal = 0; ordinal < corpusSize; ordinal++) {
+            float[] v = randomVector(random, dimensions);
+            hnsw.add(ordinal, v);
+            int8.add(ordinal, v);
+        }
+        queries = new float[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) queries[i] = randomVector(random, dimensions);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        int8.close();
+        Files.deleteIfExists(int8File);
+    }
+
+    private float[] nextQuery() {
+        next = (next + 1) % QUERY_COUNT;
+        return queries[next];
+    }
+
+    @Benchmark
+    public List<Neighbor> bruteForce() {
+        return hnsw.exactSearch(nextQuery(), k);
+    }
+
+    @Benchmark
+    public List<Neighbor> hnsw() {
+        return hnsw.search(nextQuery(), k);
+    }
+
+    @Benchmark
+    public List<Neighbor> int8Scan() {
+        return int8.search(nextQuery(), k);
+    }
+
+    static float[] randomVector(Random random, int dimensions) {
+        float[] v = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.youtube_recommender.index;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-pair kernels from {@link VectorMath}, at the embedding sizes we actually use.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimilarityBenchmark {
+
+    @Param({"768", "1024"})
+    int dimensions;
+
+    float[] a;
+    float[] b;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = IndexSearchBenchmark.randomVector(random, dimensions);
+        b = IndexSearchBenchmark.randomVector(random, dimensions);
+    }
+
+    @Benchmark
+    public float dot() {
+        return VectorMath.dot(a, b);
+    }
+
+    @Benchmark
+    public float cosine() {
+        return VectorMath.cosine(a, b);
+    }
+
+    @Benchmark
+    public float[] normalize() {
+        return VectorMath.normalize(a);
+    }
+}
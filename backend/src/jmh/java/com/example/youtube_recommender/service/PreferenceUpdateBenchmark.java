@@ -0,0 +1,64 @@
+package com.example.youtube_recommender.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preference EMA update and query/preference blending from {@link RecommendationService}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PreferenceUpdateBenchmark {
+
+    @Param({"768", "1024"})
+    int dimensions;
+
+    float[] preference;
+    float[] video;
+    float[] query;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        preference = randomVector(random, dimensions);
+        video = randomVector(random, dimensions);
+        query = randomVector(random, dimensions);
+    }
+
+    @Benchmark
+    public float[] updatePreference() {
+        return RecommendationService.updatePreference(preference, video, 1.0f);
+    }
+
+    @Benchmark
+    public float[] coldStartPreference() {
+        return RecommendationService.updatePreference(null, video, 1.0f);
+    }
+
+    @Benchmark
+    public float[] blendQueryWithPreference() {
+        return RecommendationService.combineVectors(query, 0.7f, preference, 0.3f);
+    }
+
+    static float[] randomVector(Random random, int dimensions) {
+        float[] v = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+}
@@ -2,12 +2,22 @@ package com.example.youtube_recommender;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 @SpringBootApplication
+@EnableScheduling
 public class YoutubeRecommenderApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(YoutubeRecommenderApplication.class, args);
+		SpringApplication app = new SpringApplication(YoutubeRecommenderApplication.class);
+		// Defaults only; application.properties still wins
+		app.setDefaultProperties(Map.of(
+				"management.endpoints.web.exposure.include", "health,info,metrics,prometheus",
+				// The default single scheduler thread would serialize the flushes behind feed refreshes and snapshots
+				"spring.task.scheduling.pool.size", "4"));
+		app.run(args);
 	}
 
 }
@@ -0,0 +1,23 @@
+package com.example.youtube_recommender.config;
+
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+@Configuration
+public class YouTubeConfig {
+
+    /**
+     * HTTP transport for the YouTube client. To replace it (e.g. with a MockHttpTransport in a test),
+     * define another HttpTransport bean and mark it {@code @Primary}; to point the client at a local
+     * stub server instead, set recommender.youtube.root-url.
+     */
+    @Bean
+    public HttpTransport youtubeHttpTransport() throws GeneralSecurityException, IOException {
+        return GoogleNetHttpTransport.newTrustedTransport();
+    }
+}
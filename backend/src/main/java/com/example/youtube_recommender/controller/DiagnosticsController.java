@@ -0,0 +1,146 @@
+package com.example.youtube_recommender.controller;
+
+import com.example.youtube_recommender.service.ChangeFeedService;
+import com.example.youtube_recommender.service.ExplanationCache;
+import com.example.youtube_recommender.service.LexicalIndexService;
+import com.example.youtube_recommender.service.LlmResultCache;
+import com.example.youtube_recommender.service.QueryEmbeddingCache;
+import com.example.youtube_recommender.service.VectorIndexService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Operational endpoints for inspecting and tuning the in-memory search structures.
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    private final VectorIndexService vectorIndexService;
+    private final LexicalIndexService lexicalIndexService;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final LlmResultCache llmResultCache;
+    private final ExplanationCache explanationCache;
+    private final ChangeFeedService changeFeedService;
+
+    public DiagnosticsController(VectorIndexService vectorIndexService,
+                                 LexicalIndexService lexicalIndexService,
+                                 QueryEmbeddingCache queryEmbeddingCache,
+                                 LlmResultCache llmResultCache,
+                                 ExplanationCache explanationCache,
+                                 ChangeFeedService changeFeedService) {
+        this.vectorIndexService = vectorIndexService;
+        this.lexicalIndexService = lexicalIndexService;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.llmResultCache = llmResultCache;
+        this.explanationCache = explanationCache;
+        this.changeFeedService = changeFeedService;
+    }
+
+    /**
+     * Size and parameters of the HNSW index.
+     * Usage: GET /api/diagnostics/index
+     */
+    @GetMapping("/index")
+    public Map<String, Object> indexStats() {
+        return vectorIndexService.stats();
+    }
+
+    /**
+     * Recall of the approximate search vs. brute force.
+     * Usage: GET /api/diagnostics/index/recall?queries=100&k=10
+     */
+    @GetMapping("/index/recall")
+    public Map<String, Object> indexRecall(@RequestParam(defaultValue = "100") int queries,
+                                           @RequestParam(defaultValue = "10") int k) {
+        return vectorIndexService.measureRecall(queries, k);
+    }
+
+    /**
+     * Changes efSearch at runtime, e.g. to trade latency for recall.
+     * Usage: PUT /api/diagnostics/index/ef-search?value=128
+     */
+    @PutMapping("/index/ef-search")
+    public Map<String, Object> setEfSearch(@RequestParam int value) {
+        vectorIndexService.setEfSearch(value);
+        return vectorIndexService.stats();
+    }
+
+    /**
+     * Writes an index snapshot now (if the index changed since the last one).
+     * Usage: POST /api/diagnostics/index/snapshot
+     */
+    @PostMapping("/index/snapshot")
+    public Map<String, Object> writeSnapshot() {
+        vectorIndexService.writeSnapshot();
+        return vectorIndexService.stats();
+    }
+
+    /**
+     * Document and term counts of the BM25 keyword index.
+     * Usage: GET /api/diagnostics/lexical
+     */
+    @GetMapping("/lexical")
+    public Map<String, Object> lexicalStats() {
+        return lexicalIndexService.stats();
+    }
+
+    /**
+     * This node's ID, connection state and notification counts for the cross-node change feed.
+     * Usage: GET /api/diagnostics/change-feed
+     */
+    @GetMapping("/change-feed")
+    public Map<String, Object> changeFeedStats() {
+        return changeFeedService.stats();
+    }
+
+    /**
+     * Hit/miss/eviction counts of the query-embedding cache.
+     * Usage: GET /api/diagnostics/query-cache
+     */
+    @GetMapping("/query-cache")
+    public Map<String, Object> queryCacheStats() {
+        return queryEmbeddingCache.stats();
+    }
+
+    /**
+     * Drops all cached query embeddings, e.g. after switching the embedding model.
+     * Usage: DELETE /api/diagnostics/query-cache
+     */
+    @DeleteMapping("/query-cache")
+    public void clearQueryCache() {
+        queryEmbeddingCache.invalidateAll();
+    }
+
+    /**
+     * Hit rates of the persistent summary/embedding cache used by ingestion (since startup).
+     * Usage: GET /api/diagnostics/llm-cache
+     */
+    @GetMapping("/llm-cache")
+    public Map<String, Object> llmCacheStats() {
+        return llmResultCache.stats();
+    }
+
+    /**
+     * Hit/miss counts of the generated-explanation cache.
+     * Usage: GET /api/diagnostics/explanation-cache
+     */
+    @GetMapping("/explanation-cache")
+    public Map<String, Object> explanationCacheStats() {
+        return explanationCache.stats();
+    }
+
+    /**
+     * Drops cached explanations: all of them, or only those mentioning one video.
+     * Usage: DELETE /api/diagnostics/explanation-cache[?videoId=abc123]
+     */
+    @DeleteMapping("/explanation-cache")
+    public void clearExplanationCache(@RequestParam(required = false) String videoId) {
+        if (videoId != null) {
+            explanationCache.invalidateVideo(videoId);
+        } else {
+            explanationCache.invalidateAll();
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.example.youtube_recommender.controller;
 
+import com.example.youtube_recommender.service.PipelineMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,14 +34,22 @@ public class EmbeddingsController {
 
     private static final Logger log = LoggerFactory.getLogger(EmbeddingsController.class);
     private final EmbeddingModel embeddingModel;
+    private final PipelineMetrics metrics;
 
     // ---- Tunables -----------------------------------------------------------------------------
     private static final int MAX_BATCH = 64;
     private static final int MAX_CHARS_PER_TEXT = 8_000;
     private static final int PREVIEW_DIMS = 8;
 
-    public EmbeddingsController(EmbeddingModel embeddingModel) {
+    // ---- Binary / base64 encodings ------------------------------------------------------------
+    private static final String ENCODING_FLOAT = "float";
+    private static final String ENCODING_BASE64 = "base64";
+    private static final int BINARY_MAGIC = 0x31424D45; // "EMB1" read as little-endian bytes
+    private static final int BINARY_HEADER_BYTES = 3 * Integer.BYTES;
+
+    public EmbeddingsController(EmbeddingModel embeddingModel, PipelineMetrics metrics) {
         this.embeddingModel = embeddingModel;
+        this.metrics = metrics;
     }
 
     // ---- GET: Preview -------------------------------------------------------------------------
@@ -47,7 +62,8 @@ public class EmbeddingsController {
         cleaned = enforceMaxChars(cleaned, MAX_CHARS_PER_TEXT);
 
         // 2. Embed
-        float[] vec = embeddingModel.embed(cleaned);
+        String input = cleaned;
+        float[] vec = metrics.time(PipelineMetrics.EMBEDDINGS_MODEL, () -> embeddingModel.embed(input), "source", "preview");
 
         // 3. Slice for preview
         int dims = Math.min(PREVIEW_DIMS, vec.length);
@@ -66,8 +82,64 @@ public class EmbeddingsController {
     }
 
     // ---- POST: Batch --------------------------------------------------------------------------
+
+    /**
+     * JSON response. Vectors are number arrays by default; with {@code "encoding": "base64"} in the
+     * request each vector is a base64 string of little-endian float32 values instead.
+     */
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public Map<String, Object> embedBatch(@RequestBody Map<String, Object> requestBody) {
+        BatchResult result = runBatch(requestBody);
+        Object encodingObj = requestBody.get("encoding");
+        String encoding = encodingObj == null ? ENCODING_FLOAT : encodingObj.toString();
+        if (!ENCODING_FLOAT.equals(encoding) && !ENCODING_BASE64.equals(encoding)) {
+            throw badRequest("'encoding' must be '" + ENCODING_FLOAT + "' or '" + ENCODING_BASE64 + "'.");
+        }
+
+        List<Map<String, Object>> embeddings = ENCODING_BASE64.equals(encoding)
+                ? toBase64Items(result.vectors())
+                : toEmbeddingItems(result.vectors());
+
+        long tookMs = (System.nanoTime() - result.startNanos()) / 1_000_000L;
+        log.info("Batch finished. Count: {}, Time: {}ms", embeddings.size(), tookMs);
+
+        // 5. Build Final Response
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", embeddings.size());
+        response.put("dimension", result.dimension());
+        response.put("encoding", encoding);
+        response.put("tookMs", tookMs);
+        response.put("createdAt", Instant.now().toString());
+        response.put("embeddings", embeddings);
+
+        return response;
+    }
+
+    /**
+     * Binary response for {@code Accept: application/octet-stream}.
+     *
+     * Layout (little endian): int32 magic "EMB1", int32 count, int32 dimension,
+     * then count * dimension float32 values, vector after vector in request order.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> embedBatchBinary(@RequestBody Map<String, Object> requestBody) {
+        BatchResult result = runBatch(requestBody);
+        byte[] body = toFloat32Le(result.vectors(), result.dimension());
+
+        long tookMs = (System.nanoTime() - result.startNanos()) / 1_000_000L;
+        log.info("Binary batch finished. Count: {}, Bytes: {}, Time: {}ms", result.vectors().size(), body.length, tookMs);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header("X-Embedding-Count", String.valueOf(result.vectors().size()))
+                .header("X-Embedding-Dimension", String.valueOf(result.dimension()))
+                .header("X-Took-Ms", String.valueOf(tookMs))
+                .body(body);
+    }
+
+    private record BatchResult(List<float[]> vectors, int dimension, long startNanos) {}
+
+    private BatchResult runBatch(Map<String, Object> requestBody) {
         final long t0 = System.nanoTime();
 
         // 1. Safe Extraction
@@ -94,7 +166,8 @@ public class EmbeddingsController {
 
         // 3. Call Model (The heavy lifting)
         log.info("Embedding batch of {} texts...", cleaned.size());
-        EmbeddingResponse resp = embeddingModel.embedForResponse(cleaned);
+        EmbeddingResponse resp = metrics.time(PipelineMetrics.EMBEDDINGS_MODEL,
+                () -> embeddingModel.embedForResponse(cleaned), "source", "batch");
 
         // 4. Map Results
         // Determine dimension from the first result if available
@@ -102,32 +175,11 @@ public class EmbeddingsController {
                 ? resp.getResults().getFirst().getOutput().length
                 : 0;
 
-        List<Map<String, Object>> embeddings = new ArrayList<>(resp.getResults().size());
-
-        for (int i = 0; i < resp.getResults().size(); i++) {
-            float[] outputArray = resp.getResults().get(i).getOutput();
-
-            // Convert float[] to List<Float> for JSON serialization
-            List<Float> vector = toFloatList(outputArray);
-
-            Map<String, Object> embeddingItem = new HashMap<>();
-            embeddingItem.put("index", i);
-            embeddingItem.put("vector", vector);
-            embeddings.add(embeddingItem);
+        List<float[]> outputs = new ArrayList<>(resp.getResults().size());
+        for (Embedding result : resp.getResults()) {
+            outputs.add(result.getOutput());
         }
-
-        long tookMs = (System.nanoTime() - t0) / 1_000_000L;
-        log.info("Batch finished. Count: {}, Time: {}ms", embeddings.size(), tookMs);
-
-        // 5. Build Final Response
-        Map<String, Object> response = new HashMap<>();
-        response.put("count", embeddings.size());
-        response.put("dimension", dimension);
-        response.put("tookMs", tookMs);
-        response.put("createdAt", Instant.now().toString());
-        response.put("embeddings", embeddings);
-
-        return response;
+        return new BatchResult(outputs, dimension, t0);
     }
 
     // ---- Helpers ------------------------------------------------------------------------------
@@ -163,7 +215,7 @@ public class EmbeddingsController {
      * Sanitizes text specifically for RAG purposes.
      * Removes binary control characters but PRESERVES semantic whitespace (newlines, tabs).
      */
-    private static String sanitizeForRag(String s) {
+    static String sanitizeForRag(String s) {
         if (!StringUtils.hasText(s)) {
             // Depending on use case, you might want to allow empty strings or throw error.
             // For YouTube embeddings, an empty description is useless, so we throw.
@@ -189,13 +241,61 @@ public class EmbeddingsController {
         return normalized;
     }
 
-    private static String enforceMaxChars(String s, int maxChars) {
+    static String enforceMaxChars(String s, int maxChars) {
         if (s.length() <= maxChars) return s;
         // Optimization: try to cut at a space if possible, but hard cut is safer for strictly maxChars
         return s.substring(0, maxChars);
     }
 
-    private static List<Float> toFloatList(float[] array) {
+    static List<Map<String, Object>> toEmbeddingItems(List<float[]> outputs) {
+        List<Map<String, Object>> embeddings = new ArrayList<>(outputs.size());
+
+        for (int i = 0; i < outputs.size(); i++) {
+            // Convert float[] to List<Float> for JSON serialization
+            List<Float> vector = toFloatList(outputs.get(i));
+
+            Map<String, Object> embeddingItem = new HashMap<>();
+            embeddingItem.put("index", i);
+            embeddingItem.put("vector", vector);
+            embeddings.add(embeddingItem);
+        }
+        return embeddings;
+    }
+
+    static List<Map<String, Object>> toBase64Items(List<float[]> outputs) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        List<Map<String, Object>> embeddings = new ArrayList<>(outputs.size());
+
+        for (int i = 0; i < outputs.size(); i++) {
+            float[] vector = outputs.get(i);
+            ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asFloatBuffer().put(vector);
+
+            Map<String, Object> embeddingItem = new HashMap<>();
+            embeddingItem.put("index", i);
+            embeddingItem.put("vector", encoder.encodeToString(buffer.array()));
+            embeddings.add(embeddingItem);
+        }
+        return embeddings;
+    }
+
+    static byte[] toFloat32Le(List<float[]> outputs, int dimension) {
+        ByteBuffer buffer = ByteBuffer.allocate(BINARY_HEADER_BYTES + outputs.size() * dimension * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(BINARY_MAGIC).putInt(outputs.size()).putInt(dimension);
+
+        FloatBuffer floats = buffer.asFloatBuffer();
+        for (float[] vector : outputs) {
+            if (vector.length != dimension) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Model returned mixed dimensions (" + vector.length + " vs " + dimension + ").");
+            }
+            floats.put(vector);
+        }
+        return buffer.array();
+    }
+
+    static List<Float> toFloatList(float[] array) {
         if (array == null) return List.of();
         List<Float> out = new ArrayList<>(array.length);
         for (float f : array) {
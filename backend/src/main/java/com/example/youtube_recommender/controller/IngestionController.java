@@ -1,25 +1,72 @@
 package com.example.youtube_recommender.controller;
 
-import com.example.youtube_recommender.service.VideoIngestionService;
+import com.example.youtube_recommender.model.IngestionJob;
+import com.example.youtube_recommender.service.IngestionJobService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/ingestion")
 public class IngestionController {
 
-    private final VideoIngestionService ingestionService;
+    private final IngestionJobService jobService;
 
-    public IngestionController(VideoIngestionService ingestionService) {
-        this.ingestionService = ingestionService;
+    public IngestionController(IngestionJobService jobService) {
+        this.jobService = jobService;
     }
 
     /**
-     * Triggers the YouTube scraper + LLM Summarizer + Vectorizer.
+     * Queues the YouTube scraper + LLM Summarizer + Vectorizer for one topic.
      * Usage: POST /api/ingestion/trigger?topic=Spring+Boot&max=10
      */
     @PostMapping("/trigger")
     public String triggerIngestion(@RequestParam String topic, @RequestParam(defaultValue = "5") int max) {
-        int count = ingestionService.ingestVideos(topic, max);
-        return String.format("Successfully ingested %d videos about '%s'.", count, topic);
+        IngestionJob job = jobService.submit(List.of(topic), max);
+        return String.format("Queued ingestion job %s for up to %d videos about '%s'. Track it at /api/ingestion/jobs/%s",
+                job.getJobId(), max, topic, job.getJobId());
+    }
+
+    /**
+     * Queues an ingestion job over several topics and returns its ID right away (202).
+     * Body: { "topics": ["Spring Boot", "Kubernetes"], "maxPerTopic": 20 }
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> submitJob(@RequestBody JobRequest request) {
+        int maxPerTopic = request.maxPerTopic() != null ? request.maxPerTopic() : 5;
+        IngestionJob job = jobService.submit(request.topics(), maxPerTopic);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.status(job.getJobId()));
+    }
+
+    /**
+     * Progress of one job: counters, throughput (videos per minute) and ETA.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Map<String, Object> getJob(@PathVariable String jobId) {
+        return jobService.status(jobId);
     }
-}
\ No newline at end of file
+
+    /**
+     * The 20 most recent jobs plus the state of the worker pool.
+     */
+    @GetMapping("/jobs")
+    public Map<String, Object> listJobs() {
+        return Map.of(
+                "pool", jobService.poolStats(),
+                "jobs", jobService.recent());
+    }
+
+    /**
+     * Re-queues a stopped job: pending videos continue and failed videos are retried.
+     */
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeJob(@PathVariable String jobId) {
+        jobService.resume(jobId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.status(jobId));
+    }
+
+    public record JobRequest(List<String> topics, Integer maxPerTopic) {}
+}
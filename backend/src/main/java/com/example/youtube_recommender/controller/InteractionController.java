@@ -1,40 +1,71 @@
 package com.example.youtube_recommender.controller;
 
 import com.example.youtube_recommender.enums.InteractionAction;
-import com.example.youtube_recommender.model.UserInteraction;
+import com.example.youtube_recommender.service.InteractionEventQueue;
 import com.example.youtube_recommender.service.RecommendationService;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/interactions")
 public class InteractionController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final RecommendationService recommendationService;
+    private final InteractionEventQueue interactionEventQueue;
 
-    public InteractionController(RecommendationService recommendationService) {
+    public InteractionController(RecommendationService recommendationService,
+                                 InteractionEventQueue interactionEventQueue) {
         this.recommendationService = recommendationService;
+        this.interactionEventQueue = interactionEventQueue;
     }
 
+    // Acknowledged immediately; applied by the write-behind queue shortly after
     @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
     public void recordInteraction(@RequestBody InteractionRequest request) {
-        recommendationService.recordInteraction(request.userId(), request.videoId(), request.action());
+        interactionEventQueue.submit(request.userId(), request.videoId(), request.action());
     }
 
     @DeleteMapping
     public void deleteInteraction(@RequestParam Long userId, @RequestParam String videoId) {
+        // Apply queued interactions first so they can't resurrect the deleted row
+        interactionEventQueue.flush();
         recommendationService.deleteInteraction(userId, videoId);
     }
 
+    /**
+     * Newest-first history, one page at a time.
+     * Usage: GET /api/interactions/history?userId=1&limit=50[&cursor=...]
+     * Returns { items, hasMore, nextCursor }; pass nextCursor back to get the following page.
+     */
     @GetMapping("/history")
-    public List<UserInteraction> getUserHistory(@RequestParam Long userId) {
-        return recommendationService.getUserHistory(userId, 50);
+    public Map<String, Object> getUserHistory(@RequestParam Long userId,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "50") int limit) {
+        return recommendationService.getUserHistory(userId, cursor, checkLimit(limit));
     }
 
+    /**
+     * Watch Later list, paged like the history.
+     * Usage: GET /api/interactions/watch-later?userId=1&limit=50[&cursor=...]
+     */
     @GetMapping("/watch-later")
-    public List<UserInteraction> getWatchLater(@RequestParam Long userId) {
-        return recommendationService.getUserWatchLaterList(userId);
+    public Map<String, Object> getWatchLater(@RequestParam Long userId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        return recommendationService.getUserWatchLaterList(userId, cursor, checkLimit(limit));
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
     }
 
     // Updated DTO with 'action' instead of 'type'
@@ -1,19 +1,53 @@
 package com.example.youtube_recommender.controller;
 
+import com.example.youtube_recommender.service.HomeFeedService;
 import com.example.youtube_recommender.service.RecommendationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/recommendations")
 public class RecommendationController {
 
+    private static final Logger log = LoggerFactory.getLogger(RecommendationController.class);
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+
     private final RecommendationService recommendationService;
+    private final HomeFeedService homeFeedService;
 
-    public RecommendationController(RecommendationService recommendationService) {
+    public RecommendationController(RecommendationService recommendationService,
+                                    HomeFeedService homeFeedService) {
         this.recommendationService = recommendationService;
+        this.homeFeedService = homeFeedService;
+    }
+
+    /**
+     * Precomputed home feed from the user's preference vector (no query, no LLM).
+     * Usage: GET /api/recommendations/feed?userId=1&page=0&size=20
+     */
+    @GetMapping("/feed")
+    public Map<String, Object> homeFeed(@RequestParam Long userId,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size <= 0 || size > MAX_FEED_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and size between 1 and " + MAX_FEED_PAGE_SIZE);
+        }
+        return homeFeedService.page(userId, page, size);
     }
 
     /**
@@ -33,4 +67,54 @@ public class RecommendationController {
         // Now returns the structured DTO containing text + video list
         return recommendationService.getRecommendations(userId, query);
     }
-}
\ No newline at end of file
+
+    /**
+     * Streaming variant of /ask (Server-Sent Events).
+     * Usage: GET /api/recommendations/ask/stream?userId=1&query=I want to learn java
+     *
+     * Events:
+     * - "videos": the selected Video list, sent as soon as the vector search is done.
+     * - "token":  a chunk of the AI explanation, sent as the model generates it.
+     * - "done":   the explanation is complete.
+     */
+    @GetMapping(path = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecommendation(@RequestParam Long userId,
+                                           @RequestParam String query) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        StreamingRecommendation recommendation = recommendationService.streamRecommendations(userId, query);
+
+        try {
+            emitter.send(SseEmitter.event().name("videos").data(recommendation.videos(), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        Disposable subscription = recommendation.explanation().subscribe(
+                token -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(token));
+                    } catch (IOException e) {
+                        // Client went away; the error handler below ends the stream.
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                error -> {
+                    log.warn("Recommendation stream for user {} failed: {}", userId, error.getMessage());
+                    emitter.completeWithError(error);
+                },
+                () -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("done").data(""));
+                        emitter.complete();
+                    } catch (IOException e) {
+                        emitter.completeWithError(e);
+                    }
+                });
+
+        // Stop generating tokens if the client disconnects or the stream times out.
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+}
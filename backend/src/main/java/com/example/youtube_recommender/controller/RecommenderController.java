@@ -3,36 +3,41 @@ package com.example.youtube_recommender.controller;
 import com.example.youtube_recommender.enums.InteractionAction;
 import com.example.youtube_recommender.model.User;
 import com.example.youtube_recommender.repository.UserRepository;
+import com.example.youtube_recommender.service.InteractionEventQueue;
 import com.example.youtube_recommender.service.RecommendationService;
-import com.example.youtube_recommender.service.VideoIngestionService;
+import com.example.youtube_recommender.service.IngestionJobService;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
 public class RecommenderController {
 
-    private final VideoIngestionService ingestionService;
+    private final IngestionJobService ingestionJobService;
     private final RecommendationService recommendationService;
+    private final InteractionEventQueue interactionEventQueue;
     private final UserRepository userRepository;
 
-    public RecommenderController(VideoIngestionService ingestionService,
+    public RecommenderController(IngestionJobService ingestionJobService,
                                  RecommendationService recommendationService,
+                                 InteractionEventQueue interactionEventQueue,
                                  UserRepository userRepository) {
-        this.ingestionService = ingestionService;
+        this.ingestionJobService = ingestionJobService;
         this.recommendationService = recommendationService;
+        this.interactionEventQueue = interactionEventQueue;
         this.userRepository = userRepository;
     }
 
     /**
-     * 1. Ingest Videos
+     * 1. Ingest Videos (runs in the background, see /api/ingestion/jobs/{jobId})
      * Example: POST /api/ingest?topic=Spring%20Boot&max=5
      */
     @PostMapping("/ingest")
     public String ingestVideos(@RequestParam String topic, @RequestParam(defaultValue = "5") int max) {
-        int count = ingestionService.ingestVideos(topic, max);
-        return "Successfully ingested " + count + " videos about: " + topic;
+        String jobId = ingestionJobService.submit(List.of(topic), max).getJobId();
+        return "Queued ingestion job " + jobId + " for videos about: " + topic;
     }
 
     /**
@@ -57,8 +62,8 @@ public class RecommenderController {
     public String interact(@RequestParam Long userId,
                            @RequestParam String videoId,
                            @RequestParam InteractionAction type) {
-        recommendationService.recordInteraction(userId, videoId, type);
-        return "Recorded " + type + " for video " + videoId;
+        interactionEventQueue.submit(userId, videoId, type);
+        return "Queued " + type + " for video " + videoId;
     }
 
     /**
@@ -0,0 +1,12 @@
+package com.example.youtube_recommender.controller;
+
+import com.example.youtube_recommender.model.Video;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Streaming counterpart of {@link RecommendationResponse}: the selected videos are known up front,
+ * the AI explanation arrives token by token.
+ */
+public record StreamingRecommendation(List<Video> videos, Flux<String> explanation) {}
@@ -0,0 +1,8 @@
+package com.example.youtube_recommender.enums;
+
+public enum IngestionItemStatus {
+    PENDING,
+    SAVED,
+    SKIPPED,   // already in the catalog when its turn came
+    FAILED
+}
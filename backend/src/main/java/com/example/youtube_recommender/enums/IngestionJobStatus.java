@@ -0,0 +1,8 @@
+package com.example.youtube_recommender.enums;
+
+public enum IngestionJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.example.youtube_recommender.enums;
+
+public enum LlmCacheKind {
+    SUMMARY,
+    EMBEDDING
+}
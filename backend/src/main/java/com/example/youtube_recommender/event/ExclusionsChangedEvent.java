@@ -0,0 +1,9 @@
+package com.example.youtube_recommender.event;
+
+import java.util.Set;
+
+/**
+ * Published when interactions change which videos a user should no longer be shown
+ * (watched in full or disliked). {@code released} holds videos that became eligible again.
+ */
+public record ExclusionsChangedEvent(Long userId, Set<String> excluded, Set<String> released) {}
@@ -0,0 +1,10 @@
+package com.example.youtube_recommender.event;
+
+import com.example.youtube_recommender.enums.InteractionAction;
+
+import java.time.Instant;
+
+/**
+ * A user action on a video, queued for write-behind by InteractionEventQueue.
+ */
+public record InteractionEvent(Long userId, String videoId, InteractionAction action, Instant occurredAt) {}
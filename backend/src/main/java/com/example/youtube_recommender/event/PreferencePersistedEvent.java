@@ -0,0 +1,7 @@
+package com.example.youtube_recommender.event;
+
+/**
+ * Published in the transaction that writes a user's preference vector to the database, with its new version.
+ * Unlike {@link PreferenceUpdatedEvent}, the vector is then readable by other nodes.
+ */
+public record PreferencePersistedEvent(Long userId, long version) {}
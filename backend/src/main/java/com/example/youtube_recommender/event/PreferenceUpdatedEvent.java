@@ -0,0 +1,7 @@
+package com.example.youtube_recommender.event;
+
+/**
+ * Published when a user's preference vector has been rewritten.
+ * Per-user derived state (e.g. the precomputed home feed) refreshes after the transaction commits.
+ */
+public record PreferenceUpdatedEvent(Long userId, float[] preference) {}
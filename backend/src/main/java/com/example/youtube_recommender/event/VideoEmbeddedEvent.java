@@ -0,0 +1,8 @@
+package com.example.youtube_recommender.event;
+
+/**
+ * Published when a video and its embedding have been saved.
+ * In-memory views of the catalog (vector and lexical indexes, caches) listen for it after the transaction commits.
+ */
+public record VideoEmbeddedEvent(String videoId, Long embeddingId, float[] embedding,
+                                 String title, String tags, String summary) {}
@@ -0,0 +1,239 @@
+package com.example.youtube_recommender.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory inverted index with BM25 scoring, keyed by the same dense ordinals as the vector indexes.
+ *
+ * A document is a few weighted text fields (e.g. title x2, tags x2, summary x1); a term's frequency
+ * is the weighted sum over the fields, which is a simple form of BM25F.
+ * Tokens keep '.', '+', '#', '-' and '_' inside words so "3.2", "c++" and "node.js" match as typed;
+ * compound tokens are also indexed by their parts ("node.js" -> "node", "js").
+ *
+ * Documents can be added or replaced at any time; searches take a read lock.
+ */
+public class Bm25Index {
+
+    private static final Comparator<Neighbor> WORST_FIRST = Comparator.comparingDouble(Neighbor::score);
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "how", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "what", "with", "you", "your");
+
+    /**
+     * One searchable field of a document and how much a match in it counts.
+     */
+    public record Field(String text, float weight) {}
+
+    /**
+     * Ordinals and weighted term frequencies of the documents containing one term.
+     * Entries of replaced documents are removed in place (swap with last), so order is arbitrary.
+     */
+    private static final class Postings {
+        int[] ordinals = new int[4];
+        float[] frequencies = new float[4];
+        int size;
+
+        void add(int ordinal, float frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    size--;
+                    ordinals[i] = ordinals[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final float k1;
+    private final float b;
+    private final Map<String, Postings> postings = new HashMap<>();
+    // Per document: its distinct terms (to undo a replace) and weighted length
+    private final Map<Integer, String[]> documentTerms = new HashMap<>();
+    private float[] lengths = new float[1024];
+    private double totalLength = 0;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public Bm25Index(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    // ---- Writes -------------------------------------------------------------------------------
+
+    /**
+     * Indexes (or re-indexes) the document with the given ordinal.
+     */
+    public void add(int ordinal, List<Field> fields) {
+        Map<String, Float> frequencies = new LinkedHashMap<>();
+        float length = 0;
+        for (Field field : fields) {
+            if (field.text() == null) continue;
+            for (String token : tokenize(field.text())) {
+                frequencies.merge(token, field.weight(), Float::sum);
+                length += field.weight();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(ordinal);
+            if (frequencies.isEmpty()) return;
+
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(ordinal, entry.getValue());
+            }
+            documentTerms.put(ordinal, frequencies.keySet().toArray(String[]::new));
+            if (ordinal >= lengths.length) {
+                lengths = Arrays.copyOf(lengths, Math.max(lengths.length * 2, ordinal + 1));
+            }
+            lengths[ordinal] = length;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int ordinal) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int ordinal) {
+        String[] terms = documentTerms.remove(ordinal);
+        if (terms == null) return;
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            list.remove(ordinal);
+            if (list.size == 0) postings.remove(term);
+        }
+        totalLength -= lengths[ordinal];
+        lengths[ordinal] = 0;
+    }
+
+    // ---- Search -------------------------------------------------------------------------------
+
+    /**
+     * Returns the k best-scoring accepted documents for the query, best first.
+     * Only documents containing at least one query term are scored.
+     */
+    public List<Neighbor> search(String query, int k, IntPredicate accept) {
+        if (k <= 0) return List.of();
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) return List.of();
+
+        Map<Integer, Float> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documents = documentTerms.size();
+            if (documents == 0) return List.of();
+            float averageLength = (float) (totalLength / documents);
+
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) continue;
+                // BM25 idf, kept positive for terms in more than half the documents
+                double idf = Math.log(1 + (documents - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = list.ordinals[i];
+                    if (accept != null && !accept.test(ordinal)) continue;
+                    float tf = list.frequencies[i];
+                    float norm = k1 * (1 - b + b * lengths[ordinal] / averageLength);
+                    scores.merge(ordinal, (float) (idf * tf * (k1 + 1) / (tf + norm)), Float::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        PriorityQueue<Neighbor> top = new PriorityQueue<>(k + 1, WORST_FIRST);
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            if (top.size() < k) {
+                top.offer(new Neighbor(entry.getKey(), entry.getValue()));
+            } else if (entry.getValue() > top.peek().score()) {
+                top.poll();
+                top.offer(new Neighbor(entry.getKey(), entry.getValue()));
+            }
+        }
+        List<Neighbor> results = new ArrayList<>(top);
+        results.sort(WORST_FIRST.reversed());
+        return results;
+    }
+
+    // ---- Tokenizing ---------------------------------------------------------------------------
+
+    /**
+     * Lower-cased tokens without stop words. Compound tokens are followed by their parts.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        for (String raw : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}.+#_-]+")) {
+            String token = trimPunctuation(raw);
+            if (token.isEmpty() || STOP_WORDS.contains(token)) continue;
+            tokens.add(token);
+            if (token.chars().anyMatch(c -> c == '.' || c == '-' || c == '_')) {
+                for (String part : token.split("[._-]+")) {
+                    part = trimPunctuation(part);
+                    if (!part.isEmpty() && !part.equals(token) && !STOP_WORDS.contains(part)) tokens.add(part);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    // Sentence punctuation around a word ("end." / "-flag") is not part of it; "c++" and "c#" keep theirs
+    private static String trimPunctuation(String token) {
+        int start = 0;
+        int end = token.length();
+        while (start < end && ".-_".indexOf(token.charAt(start)) >= 0) start++;
+        while (end > start && ".-_".indexOf(token.charAt(end - 1)) >= 0) end--;
+        return token.substring(start, end);
+    }
+
+    // ---- Accessors ----------------------------------------------------------------------------
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
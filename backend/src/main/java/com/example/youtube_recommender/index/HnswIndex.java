@@ -0,0 +1,423 @@
+package com.example.youtube_recommender.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov & Yashunin) over cosine similarity.
+ *
+ * Vectors are L2-normalized on insert so similarity is a plain dot product.
+ * Searches run concurrently under a read lock; inserts take the write lock.
+ *
+ * Tunables:
+ * - m: links per node on the upper layers (layer 0 keeps 2*m). Higher = better recall, more memory.
+ * - efConstruction: candidate list size while inserting. Higher = better graph, slower inserts.
+ * - efSearch: candidate list size while querying. Can be changed at runtime.
+ */
+public class HnswIndex implements VectorIndex {
+
+    private static final Comparator<Neighbor> BEST_FIRST = Comparator.comparingDouble(Neighbor::score).reversed();
+    private static final Comparator<Neighbor> WORST_FIRST = Comparator.comparingDouble(Neighbor::score);
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private volatile int efSearch;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private float[][] vectors = new float[1024][];
+    // links[node][level] -> neighbour ordinals on that level
+    private int[][][] links = new int[1024][][];
+    private int dimensions = -1;
+    private int size = 0;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2) throw new IllegalArgumentException("m must be >= 2");
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(efSearch, 1);
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(efSearch, 1);
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    // ---- Insert -------------------------------------------------------------------------------
+
+    @Override
+    public boolean add(int ordinal, float[] vector) {
+        float[] v = VectorMath.normalize(vector);
+        lock.writeLock().lock();
+        try {
+            if (dimensions == -1) {
+                dimensions = v.length;
+            } else if (v.length != dimensions) {
+                throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + v.length);
+            }
+            ensureCapacity(ordinal + 1);
+            if (vectors[ordinal] != null) return false;
+
+            int level = randomLevel();
+            vectors[ordinal] = v;
+            links[ordinal] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) links[ordinal][l] = new int[0];
+            size++;
+
+            if (entryPoint == -1) {
+                entryPoint = ordinal;
+                maxLevel = level;
+                return true;
+            }
+
+            int ep = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                ep = greedyClosest(v, ep, l);
+            }
+
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Neighbor> candidates = searchLayer(v, ep, efConstruction, l, null);
+                int[] selected = selectNeighbors(v, candidates, m);
+                links[ordinal][l] = selected;
+                int maxLinks = (l == 0) ? maxM0 : m;
+                for (int n : selected) {
+                    connect(n, ordinal, l, maxLinks);
+                }
+                ep = candidates.getFirst().ordinal();
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = ordinal;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void connect(int node, int newNeighbor, int level, int maxLinks) {
+        int[] current = links[node][level];
+        int[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = newNeighbor;
+        if (grown.length <= maxLinks) {
+            links[node][level] = grown;
+            return;
+        }
+        // Over capacity: re-select the best diverse subset relative to this node.
+        float[] base = vectors[node];
+        List<Neighbor> candidates = new ArrayList<>(grown.length);
+        for (int n : grown) {
+            candidates.add(new Neighbor(n, VectorMath.dot(base, vectors[n])));
+        }
+        candidates.sort(BEST_FIRST);
+        links[node][level] = selectNeighbors(base, candidates, maxLinks);
+    }
+
+    /**
+     * Neighbour selection heuristic (algorithm 4 in the paper): prefer candidates that are closer to
+     * the base than to anything already selected, which keeps links spread across clusters.
+     * Pruned candidates back-fill if fewer than {@code max} survive. Candidates must be best-first.
+     */
+    private int[] selectNeighbors(float[] base, List<Neighbor> candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.size())];
+        int count = 0;
+        List<Neighbor> pruned = new ArrayList<>();
+        for (Neighbor c : candidates) {
+            if (count == selected.length) break;
+            float[] cv = vectors[c.ordinal()];
+            boolean diverse = true;
+            for (int i = 0; i < count; i++) {
+                if (VectorMath.dot(cv, vectors[selected[i]]) > c.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = c.ordinal();
+            } else {
+                pruned.add(c);
+            }
+        }
+        for (int i = 0; i < pruned.size() && count < selected.length; i++) {
+            selected[count++] = pruned.get(i).ordinal();
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        return (int) (-Math.log(1.0 - r) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= vectors.length) return;
+        int newLength = Math.max(needed, vectors.length * 2);
+        vectors = Arrays.copyOf(vectors, newLength);
+        links = Arrays.copyOf(links, newLength);
+    }
+
+    // ---- Search -------------------------------------------------------------------------------
+
+    @Override
+    public List<Neighbor> search(float[] query, int k, IntPredicate accept) {
+        if (k <= 0) return List.of();
+        float[] q = VectorMath.normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint == -1) return List.of();
+            checkDimensions(q);
+
+            int ep = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                ep = greedyClosest(q, ep, l);
+            }
+            List<Neighbor> results = searchLayer(q, ep, Math.max(efSearch, k), 0, accept);
+            return results.size() > k ? new ArrayList<>(results.subList(0, k)) : results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Neighbor> exactSearch(float[] query, int k) {
+        if (k <= 0) return List.of();
+        float[] q = VectorMath.normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint == -1) return List.of();
+            checkDimensions(q);
+
+            PriorityQueue<Neighbor> top = new PriorityQueue<>(k + 1, WORST_FIRST);
+            for (int i = 0; i < vectors.length; i++) {
+                if (vectors[i] == null) continue;
+                top.offer(new Neighbor(i, VectorMath.dot(q, vectors[i])));
+                if (top.size() > k) top.poll();
+            }
+            List<Neighbor> results = new ArrayList<>(top);
+            results.sort(BEST_FIRST);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks a single layer greedily towards the query, returning the closest node reached.
+     */
+    private int greedyClosest(float[] q, int entry, int level) {
+        int current = entry;
+        float best = VectorMath.dot(q, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int n : links[current][level]) {
+                float s = VectorMath.dot(q, vectors[n]);
+                if (s > best) {
+                    best = s;
+                    current = n;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first beam search on one layer (algorithm 2 in the paper). Returns up to ef results, best first.
+     *
+     * Rejected nodes (accept returns false) are still expanded so the graph stays connected,
+     * but never enter the result set; the stop condition only looks at accepted results.
+     */
+    private List<Neighbor> searchLayer(float[] q, int entry, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(vectors.length);
+        PriorityQueue<Neighbor> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Neighbor> results = new PriorityQueue<>(WORST_FIRST);
+
+        Neighbor start = new Neighbor(entry, VectorMath.dot(q, vectors[entry]));
+        visited.set(entry);
+        candidates.add(start);
+        if (accept == null || accept.test(entry)) results.add(start);
+
+        while (!candidates.isEmpty()) {
+            Neighbor c = candidates.poll();
+            if (results.size() >= ef && c.score() < results.peek().score()) break;
+
+            int[][] nodeLinks = links[c.ordinal()];
+            if (level >= nodeLinks.length) continue;
+            for (int n : nodeLinks[level]) {
+                if (visited.get(n)) continue;
+                visited.set(n);
+                float s = VectorMath.dot(q, vectors[n]);
+                if (results.size() < ef || s > results.peek().score()) {
+                    Neighbor next = new Neighbor(n, s);
+                    candidates.add(next);
+                    if (accept == null || accept.test(n)) {
+                        results.add(next);
+                        if (results.size() > ef) results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Neighbor> ordered = new ArrayList<>(results);
+        ordered.sort(BEST_FIRST);
+        return ordered;
+    }
+
+    // ---- Snapshot -----------------------------------------------------------------------------
+
+    /**
+     * Writes parameters, vectors and links under the read lock (inserts wait, searches don't).
+     */
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            int capacity = vectors.length;
+            while (capacity > 0 && vectors[capacity - 1] == null) capacity--;
+            int dims = Math.max(dimensions, 0);
+
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(dims);
+            out.writeInt(capacity);
+            out.writeInt(size);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+
+            ByteBuffer bytes = ByteBuffer.allocate(dims * Float.BYTES);
+            for (int node = 0; node < capacity; node++) {
+                out.writeBoolean(vectors[node] != null);
+                if (vectors[node] == null) continue;
+                bytes.clear();
+                bytes.asFloatBuffer().put(vectors[node]);
+                out.write(bytes.array());
+                out.writeByte(links[node].length);
+                for (int[] level : links[node]) {
+                    out.writeShort(level.length);
+                    for (int neighbor : level) out.writeInt(neighbor);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restores an index written by {@link #writeTo}. The graph is loaded as is, not re-inserted.
+     */
+    public static HnswIndex readFrom(DataInputStream in, int efSearch) throws IOException {
+        HnswIndex index = new HnswIndex(in.readInt(), in.readInt(), efSearch);
+        int dims = in.readInt();
+        int capacity = in.readInt();
+        int size = in.readInt();
+        int entryPoint = in.readInt();
+        int maxLevel = in.readInt();
+
+        index.ensureCapacity(capacity);
+        byte[] bytes = new byte[dims * Float.BYTES];
+        for (int node = 0; node < capacity; node++) {
+            if (!in.readBoolean()) continue;
+            in.readFully(bytes);
+            float[] vector = new float[dims];
+            ByteBuffer.wrap(bytes).asFloatBuffer().get(vector);
+            index.vectors[node] = vector;
+
+            int[][] nodeLinks = new int[in.readUnsignedByte()][];
+            for (int l = 0; l < nodeLinks.length; l++) {
+                nodeLinks[l] = new int[in.readUnsignedShort()];
+                for (int i = 0; i < nodeLinks[l].length; i++) nodeLinks[l][i] = in.readInt();
+            }
+            index.links[node] = nodeLinks;
+        }
+        index.dimensions = size == 0 ? -1 : dims;
+        index.size = size;
+        index.entryPoint = entryPoint;
+        index.maxLevel = maxLevel;
+        return index;
+    }
+
+    // ---- Accessors ----------------------------------------------------------------------------
+
+    @Override
+    public float[] vector(int ordinal) {
+        lock.readLock().lock();
+        try {
+            return (ordinal >= 0 && ordinal < vectors.length) ? vectors[ordinal] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(int ordinal) {
+        return vector(ordinal) != null;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimensions() {
+        lock.readLock().lock();
+        try {
+            return Math.max(dimensions, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int maxLevel() {
+        lock.readLock().lock();
+        try {
+            return maxLevel;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- Helpers ------------------------------------------------------------------------------
+
+    private void checkDimensions(float[] q) {
+        if (q.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + q.length);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.youtube_recommender.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned on-disk snapshot of a vector index and its video ID ordinals, for fast warm starts.
+ *
+ * Layout (big endian, DataOutputStream encoding):
+ *   magic, version, index type, created-at millis, replay-from embedding ID
+ *   index payload ({@link VectorIndex#writeTo})
+ *   ordinal count, then one video ID per ordinal, in ordinal order
+ *
+ * The ordinal table is written after the index, so it covers every ordinal the index refers to.
+ * Snapshots are written to a temp file and moved into place, so a crash never leaves a torn file.
+ */
+public final class IndexSnapshot {
+
+    private static final int MAGIC = 0x49585331; // "IXS1"
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    /**
+     * Restores the index payload of a snapshot; each index type has its own reader.
+     */
+    @FunctionalInterface
+    public interface PayloadReader {
+        VectorIndex read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * @param replayFromId embeddings with a higher ID may be missing from the snapshot and must be replayed
+     */
+    public record Loaded(VectorIndex index, List<String> videoIds, long createdAtMillis, long replayFromId) {}
+
+    private IndexSnapshot() {}
+
+    public static void write(Path path, String type, long replayFromId, VectorIndex index, VideoOrdinals ordinals) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_BYTES))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(type);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(replayFromId);
+
+            index.writeTo(out);
+
+            int count = ordinals.size();
+            out.writeInt(count);
+            for (int ordinal = 0; ordinal < count; ordinal++) {
+                out.writeUTF(ordinals.videoId(ordinal));
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot, failing if it has another format version or index type.
+     */
+    public static Loaded read(Path path, String expectedType, PayloadReader payloadReader) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an index snapshot: " + path);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+            String type = in.readUTF();
+            if (!type.equals(expectedType)) throw new IOException("Snapshot is for index type '" + type + "'");
+            long createdAtMillis = in.readLong();
+            long replayFromId = in.readLong();
+
+            VectorIndex index = payloadReader.read(in);
+            try {
+                int count = in.readInt();
+                List<String> videoIds = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) videoIds.add(in.readUTF());
+                return new Loaded(index, videoIds, createdAtMillis, replayFromId);
+            } catch (IOException | RuntimeException e) {
+                // The int8 store holds a file mapping
+                if (index instanceof Closeable closeable) closeable.close();
+                throw e;
+            }
+        }
+    }
+}
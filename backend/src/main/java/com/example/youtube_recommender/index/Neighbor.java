@@ -0,0 +1,7 @@
+package com.example.youtube_recommender.index;
+
+/**
+ * A single search hit: the dense ordinal of the video and its score for the query
+ * (cosine similarity for vector indexes, BM25 for the lexical index).
+ */
+public record Neighbor(int ordinal, float score) {}
@@ -0,0 +1,55 @@
+package com.example.youtube_recommender.index;
+
+/**
+ * Plain-loop kernels, used when the Vector API module is not available.
+ * Reductions accumulate in double, as {@link VectorMath} always did.
+ */
+final class ScalarKernels implements VectorKernels {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += (double) a[i] * b[i];
+        return (float) sum;
+    }
+
+    @Override
+    public float[] dotAndNorms(float[] a, float[] b) {
+        double normA = 0, normB = 0, dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += (double) a[i] * b[i];
+            normA += (double) a[i] * a[i];
+            normB += (double) b[i] * b[i];
+        }
+        return new float[] {(float) dot, (float) normA, (float) normB};
+    }
+
+    @Override
+    public float sumOfSquares(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += (double) x * x;
+        return (float) norm;
+    }
+
+    @Override
+    public void combine(float[] a, float scaleA, float[] b, float scaleB, float[] out) {
+        for (int i = 0; i < out.length; i++) out[i] = a[i] * scaleA + b[i] * scaleB;
+    }
+
+    @Override
+    public void scale(float[] v, float scale, float[] out) {
+        for (int i = 0; i < out.length; i++) out[i] = v[i] * scale;
+    }
+
+    @Override
+    public int dotInt8(byte[] a, byte[] b, int length) {
+        int acc = 0;
+        for (int i = 0; i < length; i++) acc += a[i] * b[i];
+        return acc;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.youtube_recommender.index;
+
+/**
+ * A vector search hit resolved to its video: the video ID and its cosine similarity to the query.
+ */
+public record ScoredVideo(String videoId, float score) {}
@@ -0,0 +1,113 @@
+package com.example.youtube_recommender.index;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on the Java Vector API (jdk.incubator.vector), using the widest float shape the CPU prefers.
+ * Only loaded when the module is present; see {@link VectorMath}.
+ *
+ * Reductions keep one accumulator per lane and reduce once at the end, so results can differ from
+ * the scalar loops in the last float bits.
+ */
+final class SimdKernels implements VectorKernels {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    // int8 dot: widen 8 bytes at a time into 8 int lanes. Needs at least 256-bit int vectors.
+    private static final VectorSpecies<Byte> BYTES_64 = ByteVector.SPECIES_64;
+    private static final VectorSpecies<Integer> INTS_256 = IntVector.SPECIES_256;
+    private static final boolean WIDE_INT8 = IntVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
+
+    @Override
+    public String name() {
+        return "simd-" + FLOATS.vectorBitSize() + "bit";
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        int upper = FLOATS.loopBound(a.length);
+        FloatVector acc = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (; i < upper; i += FLOATS.length()) {
+            FloatVector va = FloatVector.fromArray(FLOATS, a, i);
+            FloatVector vb = FloatVector.fromArray(FLOATS, b, i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    @Override
+    public float[] dotAndNorms(float[] a, float[] b) {
+        int upper = FLOATS.loopBound(a.length);
+        FloatVector dot = FloatVector.zero(FLOATS);
+        FloatVector normA = FloatVector.zero(FLOATS);
+        FloatVector normB = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (; i < upper; i += FLOATS.length()) {
+            FloatVector va = FloatVector.fromArray(FLOATS, a, i);
+            FloatVector vb = FloatVector.fromArray(FLOATS, b, i);
+            dot = va.fma(vb, dot);
+            normA = va.fma(va, normA);
+            normB = vb.fma(vb, normB);
+        }
+        float d = dot.reduceLanes(VectorOperators.ADD);
+        float na = normA.reduceLanes(VectorOperators.ADD);
+        float nb = normB.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            d += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return new float[] {d, na, nb};
+    }
+
+    @Override
+    public float sumOfSquares(float[] v) {
+        return dot(v, v);
+    }
+
+    @Override
+    public void combine(float[] a, float scaleA, float[] b, float scaleB, float[] out) {
+        int upper = FLOATS.loopBound(out.length);
+        int i = 0;
+        for (; i < upper; i += FLOATS.length()) {
+            FloatVector va = FloatVector.fromArray(FLOATS, a, i);
+            FloatVector vb = FloatVector.fromArray(FLOATS, b, i);
+            va.mul(scaleA).add(vb.mul(scaleB)).intoArray(out, i);
+        }
+        for (; i < out.length; i++) out[i] = a[i] * scaleA + b[i] * scaleB;
+    }
+
+    @Override
+    public void scale(float[] v, float scale, float[] out) {
+        int upper = FLOATS.loopBound(out.length);
+        int i = 0;
+        for (; i < upper; i += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, v, i).mul(scale).intoArray(out, i);
+        }
+        for (; i < out.length; i++) out[i] = v[i] * scale;
+    }
+
+    @Override
+    public int dotInt8(byte[] a, byte[] b, int length) {
+        int i = 0;
+        int acc = 0;
+        if (WIDE_INT8) {
+            int upper = BYTES_64.loopBound(length);
+            IntVector sum = IntVector.zero(INTS_256);
+            for (; i < upper; i += BYTES_64.length()) {
+                IntVector va = (IntVector) ByteVector.fromArray(BYTES_64, a, i).convertShape(VectorOperators.B2I, INTS_256, 0);
+                IntVector vb = (IntVector) ByteVector.fromArray(BYTES_64, b, i).convertShape(VectorOperators.B2I, INTS_256, 0);
+                sum = sum.add(va.mul(vb));
+            }
+            acc = sum.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) acc += a[i] * b[i];
+        return acc;
+    }
+}
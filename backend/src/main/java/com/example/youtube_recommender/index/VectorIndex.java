@@ -0,0 +1,55 @@
+package com.example.youtube_recommender.index;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * In-process nearest-neighbour index over video embeddings.
+ * Entries are addressed by the dense ordinals handed out by {@link VideoOrdinals}.
+ */
+public interface VectorIndex {
+
+    /**
+     * Adds a vector under the given ordinal.
+     * @return false if the ordinal is already indexed.
+     */
+    boolean add(int ordinal, float[] vector);
+
+    /**
+     * Approximate top-k search by cosine similarity (best first).
+     */
+    default List<Neighbor> search(float[] query, int k) {
+        return search(query, k, null);
+    }
+
+    /**
+     * Approximate top-k search that only returns ordinals {@code accept} is true for
+     * (null accepts everything). Rejected entries are skipped during the search itself,
+     * so the result still has up to k entries without over-fetching.
+     */
+    List<Neighbor> search(float[] query, int k, IntPredicate accept);
+
+    /**
+     * Brute-force top-k search, used as ground truth for recall checks.
+     */
+    List<Neighbor> exactSearch(float[] query, int k);
+
+    /**
+     * The stored (normalized) vector for an ordinal, or null if absent.
+     */
+    float[] vector(int ordinal);
+
+    boolean contains(int ordinal);
+
+    int size();
+
+    int dimensions();
+
+    /**
+     * Writes the index state for {@link IndexSnapshot}. Each implementation has a matching
+     * static reader.
+     */
+    void writeTo(DataOutputStream out) throws IOException;
+}
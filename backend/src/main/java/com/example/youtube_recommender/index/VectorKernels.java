@@ -0,0 +1,34 @@
+package com.example.youtube_recommender.index;
+
+/**
+ * Low-level float/int8 kernels behind {@link VectorMath}.
+ * Implementations: {@link SimdKernels} (Java Vector API) and {@link ScalarKernels} (plain loops).
+ */
+interface VectorKernels {
+
+    String name();
+
+    float dot(float[] a, float[] b);
+
+    /**
+     * Returns {dot(a, b), |a|^2, |b|^2} from a single pass.
+     */
+    float[] dotAndNorms(float[] a, float[] b);
+
+    float sumOfSquares(float[] v);
+
+    /**
+     * out[i] = a[i] * scaleA + b[i] * scaleB
+     */
+    void combine(float[] a, float scaleA, float[] b, float scaleB, float[] out);
+
+    /**
+     * out[i] = v[i] * scale
+     */
+    void scale(float[] v, float scale, float[] out);
+
+    /**
+     * Dot product of the first {@code length} int8 codes.
+     */
+    int dotInt8(byte[] a, byte[] b, int length);
+}
@@ -0,0 +1,99 @@
+package com.example.youtube_recommender.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Shared float-vector helpers for the in-process indexes and the recommendation math.
+ *
+ * Backed by SIMD kernels on the Java Vector API when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, and by plain loops otherwise.
+ * Set {@code -Drecommender.simd=false} to force the scalar kernels.
+ */
+public final class VectorMath {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorMath.class);
+    private static final VectorKernels KERNELS = selectKernels();
+
+    private VectorMath() {}
+
+    private static VectorKernels selectKernels() {
+        boolean allowed = Boolean.parseBoolean(System.getProperty("recommender.simd", "true"));
+        if (allowed && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                VectorKernels simd = new SimdKernels();
+                log.info("Vector math uses {} kernels", simd.name());
+                return simd;
+            } catch (LinkageError e) {
+                log.warn("Vector API unavailable, using scalar kernels: {}", e.toString());
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    /**
+     * Name of the active kernel set, e.g. "simd-256bit" or "scalar".
+     */
+    public static String kernels() {
+        return KERNELS.name();
+    }
+
+    public static float dot(float[] a, float[] b) {
+        return KERNELS.dot(a, b);
+    }
+
+    public static float cosine(float[] a, float[] b) {
+        float[] dn = KERNELS.dotAndNorms(a, b);
+        if (dn[1] == 0 || dn[2] == 0) return 0f;
+        return (float) (dn[0] / (Math.sqrt(dn[1]) * Math.sqrt(dn[2])));
+    }
+
+    /**
+     * Returns a unit-length copy of the vector (all zeros stays all zeros).
+     */
+    public static float[] normalize(float[] v) {
+        float norm = KERNELS.sumOfSquares(v);
+        float[] out = new float[v.length];
+        if (norm == 0) return out;
+        KERNELS.scale(v, (float) (1.0 / Math.sqrt(norm)), out);
+        return out;
+    }
+
+    /**
+     * Unit-length copy of the first {@code dimensions} components. For embedding models trained
+     * Matryoshka-style the prefix is itself a usable (coarser) embedding.
+     */
+    public static float[] truncate(float[] v, int dimensions) {
+        return normalize(v.length > dimensions ? Arrays.copyOf(v, dimensions) : v);
+    }
+
+    /**
+     * Returns a * scaleA + b * scaleB as a new vector.
+     */
+    public static float[] combine(float[] a, float scaleA, float[] b, float scaleB) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vector sizes differ: " + a.length + " vs " + b.length);
+        }
+        float[] out = new float[a.length];
+        KERNELS.combine(a, scaleA, b, scaleB, out);
+        return out;
+    }
+
+    /**
+     * Returns v * scale as a new vector.
+     */
+    public static float[] scale(float[] v, float scale) {
+        float[] out = new float[v.length];
+        KERNELS.scale(v, scale, out);
+        return out;
+    }
+
+    /**
+     * Dot product of the first {@code length} int8 codes of both arrays.
+     */
+    public static int dotInt8(byte[] a, byte[] b, int length) {
+        return KERNELS.dotInt8(a, b, length);
+    }
+}
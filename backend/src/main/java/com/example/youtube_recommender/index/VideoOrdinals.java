@@ -0,0 +1,57 @@
+package com.example.youtube_recommender.index;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps YouTube video IDs to dense int ordinals (0, 1, 2, ...) and back.
+ * Indexes store ordinals instead of strings so they can use flat arrays and bitsets.
+ * Ordinals are never reused.
+ */
+public class VideoOrdinals {
+
+    private final ConcurrentHashMap<String, Integer> byVideoId = new ConcurrentHashMap<>();
+    private volatile String[] byOrdinal = new String[1024];
+    private volatile int size = 0;
+
+    /**
+     * Returns the existing ordinal for the video or assigns the next free one.
+     */
+    public int getOrAssign(String videoId) {
+        Integer existing = byVideoId.get(videoId);
+        if (existing != null) return existing;
+        synchronized (this) {
+            existing = byVideoId.get(videoId);
+            if (existing != null) return existing;
+
+            int ordinal = size;
+            String[] table = byOrdinal;
+            if (ordinal == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[ordinal] = videoId;
+            byOrdinal = table;
+            // Publish the reverse mapping before the forward one so readers never see a dangling ordinal.
+            size = ordinal + 1;
+            byVideoId.put(videoId, ordinal);
+            return ordinal;
+        }
+    }
+
+    /**
+     * @return the ordinal, or -1 if the video has none.
+     */
+    public int ordinalOf(String videoId) {
+        Integer ordinal = byVideoId.get(videoId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String videoId(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) return null;
+        return byOrdinal[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+}
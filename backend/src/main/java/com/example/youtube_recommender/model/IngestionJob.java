@@ -0,0 +1,90 @@
+package com.example.youtube_recommender.model;
+
+import com.example.youtube_recommender.enums.IngestionJobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One asynchronous ingestion run over a list of topics.
+ * Progress counters are checkpointed as the job goes, so an interrupted job can resume.
+ * The owning node holds a lease on the job (ownerNode, heartbeatAt) while it is queued or running.
+ */
+@Entity
+@Table(name = "ingestion_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestionJob {
+
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IngestionJobStatus status;
+
+    /**
+     * Topics, one per line.
+     */
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String topics;
+
+    @Column(name = "max_per_topic", nullable = false)
+    private int maxPerTopic;
+
+    // Topics [0, discoveredTopics) have been searched and their videos queued as items
+    @Column(name = "discovered_topics", nullable = false)
+    private int discoveredTopics;
+
+    @Column(name = "total_videos", nullable = false)
+    private int totalVideos;
+
+    @Column(name = "saved_videos", nullable = false)
+    private int savedVideos;
+
+    @Column(name = "skipped_videos", nullable = false)
+    private int skippedVideos;
+
+    @Column(name = "failed_videos", nullable = false)
+    private int failedVideos;
+
+    // Throughput is measured from the latest (re)start, so downtime doesn't skew the ETA
+    @Column(name = "resumed_at")
+    private LocalDateTime resumedAt;
+
+    @Column(name = "processed_at_resume", nullable = false)
+    private int processedAtResume;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    // Lease: the node working on the job renews heartbeatAt; other nodes take the job over once it
+    // expires. Only written by the lease queries in IngestionJobRepository, never by entity saves.
+    @Column(name = "owner_node", length = 36, updatable = false)
+    private String ownerNode;
+
+    @Column(name = "heartbeat_at", updatable = false)
+    private LocalDateTime heartbeatAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public int processedVideos() {
+        return savedVideos + skippedVideos + failedVideos;
+    }
+}
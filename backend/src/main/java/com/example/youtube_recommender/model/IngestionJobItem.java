@@ -0,0 +1,47 @@
+package com.example.youtube_recommender.model;
+
+import com.example.youtube_recommender.enums.IngestionItemStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint for one video of an ingestion job.
+ */
+@Entity
+@Table(name = "ingestion_job_items",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"job_id", "video_id"}),
+        indexes = @Index(name = "idx_ingestion_items_job_status", columnList = "job_id, status, item_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestionJobItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "job_id", length = 36, nullable = false)
+    private String jobId;
+
+    @Column(name = "video_id", nullable = false)
+    private String videoId;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IngestionItemStatus status;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
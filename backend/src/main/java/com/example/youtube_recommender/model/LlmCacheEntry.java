@@ -0,0 +1,57 @@
+package com.example.youtube_recommender.model;
+
+import com.example.youtube_recommender.enums.LlmCacheKind;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored model output (summary text or embedding), keyed by a hash of kind + model + input.
+ * Lets ingestion skip Ollama for inputs it has already processed.
+ */
+@Entity
+@Table(name = "llm_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LlmCacheEntry {
+
+    /**
+     * SHA-256 (hex) of kind, model name and the exact input text.
+     */
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LlmCacheKind kind;
+
+    @Column(name = "model_name", nullable = false)
+    private String modelName;
+
+    /**
+     * Set for SUMMARY entries.
+     */
+    @Column(name = "text_value", columnDefinition = "TEXT")
+    private String textValue;
+
+    /**
+     * Set for EMBEDDING entries.
+     */
+    @Column(name = "vector_value", columnDefinition = "vector")
+    @JdbcTypeCode(SqlTypes.VECTOR)
+    private float[] vectorValue;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -37,10 +37,21 @@ public class User {
     @Column(name = "password_hash")
     private String passwordHash;
 
-    @Column(name = "preference_embedding", columnDefinition = "vector")
+    /**
+     * Written only through UserRepository#updatePreference (see PreferenceAccumulator),
+     * so saving a User never overwrites a newer vector.
+     */
+    @Column(name = "preference_embedding", columnDefinition = "vector", updatable = false)
     @JdbcTypeCode(SqlTypes.VECTOR)
     private float[] preferenceEmbedding;
 
+    /**
+     * Incremented on every preference write, for optimistic concurrency between writers.
+     */
+    @Builder.Default
+    @Column(name = "preference_version", columnDefinition = "bigint not null default 0", updatable = false)
+    private long preferenceVersion = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -14,7 +14,13 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "user_interactions",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "video_id"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "video_id"}),
+        // Keyset indexes (not covering): they return a page of history / watch-later rows newest first
+        // without a sort; the interaction columns and the joined videos row are then read per row
+        indexes = {
+                @Index(name = "idx_user_interactions_history", columnList = "user_id, last_modified DESC, interaction_id DESC"),
+                @Index(name = "idx_user_interactions_watch_later", columnList = "user_id, watch_later, last_modified DESC, interaction_id DESC")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
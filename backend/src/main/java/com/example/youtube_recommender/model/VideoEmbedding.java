@@ -12,7 +12,8 @@ import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "video_embeddings")
+@Table(name = "video_embeddings",
+        indexes = @Index(name = "idx_video_embeddings_created_at", columnList = "created_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,6 +37,14 @@ public class VideoEmbedding {
     @JdbcTypeCode(SqlTypes.VECTOR)
     private float[] semanticEmbedding;
 
+    /**
+     * Prefix of the semantic vector, re-normalized (recommender.embeddings.reduced-dimensions).
+     * Null while the option is off. Used for the coarse first pass of two-phase search.
+     */
+    @Column(name = "reduced_embedding", columnDefinition = "vector")
+    @JdbcTypeCode(SqlTypes.VECTOR)
+    private float[] reducedEmbedding;
+
     /**
      * LLM-generated summary (Llama 3.2).
      * Used for RAG context injection.
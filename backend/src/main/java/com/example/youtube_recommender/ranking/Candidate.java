@@ -0,0 +1,69 @@
+package com.example.youtube_recommender.ranking;
+
+import com.example.youtube_recommender.repository.VideoFeatures;
+
+/**
+ * A video in the candidate set of one request.
+ *
+ * Starts with its first-stage relevance: the cosine similarity of its embedding to the search vector.
+ * Ranker stages don't change that score; they add small signed adjustments (e.g. +0.1 for a popular
+ * video), and {@code RankingService} scales the relevance by the bounded sum of them. That way the
+ * stages reorder candidates of similar relevance but cannot lift a weak match over a strong one.
+ */
+public final class Candidate {
+
+    private final String videoId;
+    private final int firstStageRank;
+    private final double score;
+    private double adjustment;
+    private VideoFeatures features;
+
+    public Candidate(String videoId, int firstStageRank, double score) {
+        this.videoId = videoId;
+        this.firstStageRank = firstStageRank;
+        this.score = score;
+    }
+
+    public String videoId() {
+        return videoId;
+    }
+
+    /**
+     * 0-based position in the retrieval order; used for ties and for the fallback order.
+     */
+    public int firstStageRank() {
+        return firstStageRank;
+    }
+
+    /**
+     * First-stage relevance (cosine similarity).
+     */
+    public double score() {
+        return score;
+    }
+
+    /**
+     * Sum of the stage adjustments so far (0 = neutral).
+     */
+    public double adjustment() {
+        return adjustment;
+    }
+
+    /**
+     * Ranking features (views, publish date, duration); null if the video was not found.
+     */
+    public VideoFeatures features() {
+        return features;
+    }
+
+    public void attach(VideoFeatures features) {
+        this.features = features;
+    }
+
+    /**
+     * Adds a signed adjustment, as a fraction of the relevance (0.1 = 10% better).
+     */
+    public void adjust(double delta) {
+        adjustment += delta;
+    }
+}
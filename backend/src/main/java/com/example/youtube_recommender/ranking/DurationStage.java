@@ -0,0 +1,41 @@
+package com.example.youtube_recommender.ranking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Demotes very short videos (Shorts, trailers), which rarely answer a learning query.
+ * Unknown durations are left alone.
+ */
+@Component
+@Order(30)
+public class DurationStage implements RankerStage {
+
+    private final double weight;
+    private final int minSeconds;
+
+    public DurationStage(@Value("${recommender.ranking.duration.weight:0.2}") double weight,
+                         @Value("${recommender.ranking.duration.min-seconds:120}") int minSeconds) {
+        this.weight = weight;
+        this.minSeconds = minSeconds;
+    }
+
+    @Override
+    public String name() {
+        return "duration";
+    }
+
+    @Override
+    public void apply(RankingContext context, List<Candidate> candidates) {
+        if (weight == 0) return;
+        for (Candidate candidate : candidates) {
+            Integer seconds = candidate.features() == null ? null : candidate.features().durationSeconds();
+            if (seconds == null || seconds <= 0 || seconds >= minSeconds) continue;
+            // Linear penalty: the full weight at 0s, none at minSeconds
+            candidate.adjust(-weight * (1 - (double) seconds / minSeconds));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.youtube_recommender.ranking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Favors recent uploads with an exponential decay: a video one half-life old is neutral,
+ * newer ones are boosted, older ones demoted (never by more than the weight).
+ */
+@Component
+@Order(20)
+public class FreshnessStage implements RankerStage {
+
+    private final double weight;
+    private final double halfLifeDays;
+
+    public FreshnessStage(@Value("${recommender.ranking.freshness.weight:0.15}") double weight,
+                          @Value("${recommender.ranking.freshness.half-life:P365D}") Duration halfLife) {
+        this.weight = weight;
+        this.halfLifeDays = Math.max(1, halfLife.toDays());
+    }
+
+    @Override
+    public String name() {
+        return "freshness";
+    }
+
+    @Override
+    public void apply(RankingContext context, List<Candidate> candidates) {
+        if (weight == 0) return;
+        for (Candidate candidate : candidates) {
+            if (candidate.features() == null || candidate.features().publishedAt() == null) continue;
+            double ageDays = Math.max(0, Duration.between(
+                    candidate.features().publishedAt().atZone(ZoneId.systemDefault()).toInstant(), context.now()).toHours() / 24.0);
+            // 1.0 when brand new, 0.5 at one half-life, towards 0 after that
+            double freshness = Math.pow(0.5, ageDays / halfLifeDays);
+            candidate.adjust(weight * (2 * freshness - 1));
+        }
+    }
+}
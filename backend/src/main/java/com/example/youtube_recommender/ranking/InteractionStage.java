@@ -0,0 +1,58 @@
+package com.example.youtube_recommender.ranking;
+
+import com.example.youtube_recommender.enums.WatchStatus;
+import com.example.youtube_recommender.model.UserInteraction;
+import com.example.youtube_recommender.repository.UserInteractionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Uses the user's own state on the candidates (one query for the whole set):
+ * boosts Watch Later and partially watched videos, demotes videos clicked but never watched.
+ * Fully watched and disliked videos never get here (see UserExclusionService).
+ */
+@Component
+@Order(40)
+public class InteractionStage implements RankerStage {
+
+    private final UserInteractionRepository interactionRepository;
+    private final double weight;
+
+    public InteractionStage(UserInteractionRepository interactionRepository,
+                            @Value("${recommender.ranking.interaction.weight:0.2}") double weight) {
+        this.interactionRepository = interactionRepository;
+        this.weight = weight;
+    }
+
+    @Override
+    public String name() {
+        return "interaction";
+    }
+
+    @Override
+    public void apply(RankingContext context, List<Candidate> candidates) {
+        if (weight == 0 || candidates.isEmpty()) return;
+        List<String> videoIds = candidates.stream().map(Candidate::videoId).toList();
+        Map<String, UserInteraction> byVideo = interactionRepository.findByUserAndVideoIds(context.userId(), videoIds).stream()
+                .collect(Collectors.toMap(ui -> ui.getVideo().getVideoId(), Function.identity()));
+        if (byVideo.isEmpty()) return;
+
+        for (Candidate candidate : candidates) {
+            UserInteraction interaction = byVideo.get(candidate.videoId());
+            if (interaction == null) continue;
+            if (interaction.isWatchLater()) {
+                candidate.adjust(weight);
+            } else if (interaction.getWatchStatus() == WatchStatus.PARTIAL) {
+                candidate.adjust(weight / 2);
+            } else if (interaction.isClicked() && interaction.getWatchStatus() == WatchStatus.NOT_WATCHED) {
+                candidate.adjust(-weight / 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.youtube_recommender.ranking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Favors widely watched videos: log-scaled view count, neutral around 3k views
+ * (10M+ views get the full boost, unwatched videos the full penalty).
+ */
+@Component
+@Order(10)
+public class PopularityStage implements RankerStage {
+
+    private static final double FULL_SCALE_LOG_VIEWS = 7.0; // log10(10M)
+
+    private final double weight;
+
+    public PopularityStage(@Value("${recommender.ranking.popularity.weight:0.1}") double weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public String name() {
+        return "popularity";
+    }
+
+    @Override
+    public void apply(RankingContext context, List<Candidate> candidates) {
+        if (weight == 0) return;
+        for (Candidate candidate : candidates) {
+            if (candidate.features() == null || candidate.features().viewCount() == null) continue;
+            double popularity = Math.min(1.0, Math.log10(1 + candidate.features().viewCount()) / FULL_SCALE_LOG_VIEWS);
+            candidate.adjust(weight * (2 * popularity - 1));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.youtube_recommender.ranking;
+
+import java.util.List;
+
+/**
+ * One step of the second-stage ranking. Stages are Spring beans, applied in {@code @Order}.
+ *
+ * A stage adjusts candidate scores with {@link Candidate#adjust}; it must not reorder or drop
+ * candidates. Stages run under the request's time budget and should check
+ * {@link RankingContext#expired()} between expensive steps.
+ */
+public interface RankerStage {
+
+    /**
+     * Short name for metrics and logs, e.g. "freshness".
+     */
+    String name();
+
+    void apply(RankingContext context, List<Candidate> candidates);
+}
@@ -0,0 +1,13 @@
+package com.example.youtube_recommender.ranking;
+
+import java.time.Instant;
+
+/**
+ * Per-request inputs shared by all ranker stages.
+ */
+public record RankingContext(Long userId, String query, Instant now, Instant deadline) {
+
+    public boolean expired() {
+        return Instant.now().isAfter(deadline);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.youtube_recommender.repository;
+
+/**
+ * Lightweight projection of a video embedding row (no Video entity, no summary text).
+ * Used to stream the catalog into in-memory indexes.
+ */
+public record EmbeddingVector(Long embeddingId, String videoId, float[] vector) {}
@@ -0,0 +1,31 @@
+package com.example.youtube_recommender.repository;
+
+import com.example.youtube_recommender.enums.IngestionItemStatus;
+import com.example.youtube_recommender.model.IngestionJobItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface IngestionJobItemRepository extends JpaRepository<IngestionJobItem, Long> {
+
+    // Next chunk of work for a job, in discovery order
+    List<IngestionJobItem> findByJobIdAndStatusOrderByItemId(String jobId, IngestionItemStatus status, Pageable pageable);
+
+    @Query("SELECT i.videoId FROM IngestionJobItem i WHERE i.jobId = :jobId")
+    Set<String> findVideoIds(@Param("jobId") String jobId);
+
+    long countByJobIdAndStatus(String jobId, IngestionItemStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IngestionJobItem i SET i.status = :to WHERE i.jobId = :jobId AND i.status = :from")
+    int updateStatus(@Param("jobId") String jobId, @Param("from") IngestionItemStatus from, @Param("to") IngestionItemStatus to);
+}
@@ -0,0 +1,56 @@
+package com.example.youtube_recommender.repository;
+
+import com.example.youtube_recommender.enums.IngestionJobStatus;
+import com.example.youtube_recommender.model.IngestionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IngestionJobRepository extends JpaRepository<IngestionJob, String> {
+
+    List<IngestionJob> findByStatusIn(Collection<IngestionJobStatus> statuses);
+
+    List<IngestionJob> findTop20ByOrderByCreatedAtDesc();
+
+    /**
+     * Takes the lease on a job unless another node holds a live one (an unfinished job whose
+     * heartbeat is newer than {@code expiredBefore}). Returns 1 if this node now owns the job.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE IngestionJob j SET j.ownerNode = :node, j.heartbeatAt = :now
+             WHERE j.jobId = :jobId
+               AND (j.ownerNode = :node OR j.ownerNode IS NULL OR j.heartbeatAt IS NULL
+                    OR j.heartbeatAt < :expiredBefore OR j.status NOT IN :unfinished)
+            """)
+    int claim(@Param("jobId") String jobId,
+              @Param("node") String node,
+              @Param("now") LocalDateTime now,
+              @Param("expiredBefore") LocalDateTime expiredBefore,
+              @Param("unfinished") Collection<IngestionJobStatus> unfinished);
+
+    /**
+     * Renews this node's lease on one job; 0 means another node has taken it over.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IngestionJob j SET j.heartbeatAt = :now WHERE j.jobId = :jobId AND j.ownerNode = :node")
+    int renew(@Param("jobId") String jobId, @Param("node") String node, @Param("now") LocalDateTime now);
+
+    /**
+     * Expires every lease this node holds, so other nodes can resume its jobs right away.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IngestionJob j SET j.heartbeatAt = NULL WHERE j.ownerNode = :node")
+    int release(@Param("node") String node);
+}
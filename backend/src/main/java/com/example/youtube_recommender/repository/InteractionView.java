@@ -0,0 +1,37 @@
+package com.example.youtube_recommender.repository;
+
+import com.example.youtube_recommender.enums.LikeStatus;
+import com.example.youtube_recommender.enums.WatchStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an interaction plus the video fields the library pages show.
+ * Serializes like the entity did ({@code video.videoId}, {@code likeStatus}, ...) without loading
+ * the User or the full Video.
+ */
+public record InteractionView(Long interactionId,
+                              LikeStatus likeStatus,
+                              boolean watchLater,
+                              WatchStatus watchStatus,
+                              boolean clicked,
+                              LocalDateTime lastModified,
+                              VideoItem video) {
+
+    public record VideoItem(String videoId,
+                            String title,
+                            String description,
+                            String channelName,
+                            Integer durationSeconds,
+                            LocalDateTime publishedAt,
+                            String thumbnailUrl) {}
+
+    // Flat constructor for JPQL constructor expressions, which can't build nested records
+    public InteractionView(Long interactionId, LikeStatus likeStatus, boolean watchLater, WatchStatus watchStatus,
+                           boolean clicked, LocalDateTime lastModified,
+                           String videoId, String title, String description, String channelName,
+                           Integer durationSeconds, LocalDateTime publishedAt, String thumbnailUrl) {
+        this(interactionId, likeStatus, watchLater, watchStatus, clicked, lastModified,
+                new VideoItem(videoId, title, description, channelName, durationSeconds, publishedAt, thumbnailUrl));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.youtube_recommender.repository;
+
+/**
+ * Projection of the text fields of a video embedding row (no vector).
+ * Used to stream the catalog into the lexical index.
+ */
+public record LexicalDocument(Long embeddingId, String videoId, String title, String tags, String summary) {}
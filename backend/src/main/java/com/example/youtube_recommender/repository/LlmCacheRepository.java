@@ -0,0 +1,9 @@
+package com.example.youtube_recommender.repository;
+
+import com.example.youtube_recommender.model.LlmCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LlmCacheRepository extends JpaRepository<LlmCacheEntry, String> {
+}
@@ -1,11 +1,15 @@
 package com.example.youtube_recommender.repository;
 
+import com.example.youtube_recommender.enums.LikeStatus;
+import com.example.youtube_recommender.enums.WatchStatus;
 import com.example.youtube_recommender.model.UserInteraction;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,13 +17,50 @@ public interface UserInteractionRepository extends JpaRepository<UserInteraction
 
     Optional<UserInteraction> findByUserUserIdAndVideoVideoId(Long userId, String videoId);
 
-    // Get History (Sorted by last modified)
-    @Query("SELECT ui FROM UserInteraction ui WHERE ui.user.userId = :userId ORDER BY ui.lastModified DESC")
-    List<UserInteraction> findHistory(@Param("userId") Long userId, Pageable pageable);
+    // Existing interactions of one user with several videos (used when applying interaction batches)
+    @Query("SELECT ui FROM UserInteraction ui JOIN FETCH ui.video v WHERE ui.user.userId = :userId AND v.videoId IN :videoIds")
+    List<UserInteraction> findByUserAndVideoIds(@Param("userId") Long userId, @Param("videoIds") Collection<String> videoIds);
 
-    // Get Watch Later list (Using the new boolean field 'watchLater')
-    @Query("SELECT ui FROM UserInteraction ui WHERE ui.user.userId = :userId AND ui.watchLater = true ORDER BY ui.lastModified DESC")
-    List<UserInteraction> findWatchLater(@Param("userId") Long userId);
+    // Videos the user shouldn't be recommended again (see UserExclusionService)
+    @Query("SELECT ui.video.videoId FROM UserInteraction ui WHERE ui.user.userId = :userId AND (ui.watchStatus = :watchStatus OR ui.likeStatus = :likeStatus)")
+    List<String> findExcludedVideoIds(@Param("userId") Long userId,
+                                      @Param("watchStatus") WatchStatus watchStatus,
+                                      @Param("likeStatus") LikeStatus likeStatus);
+
+    String VIEW_SELECT = """
+            SELECT new com.example.youtube_recommender.repository.InteractionView(
+                ui.interactionId, ui.likeStatus, ui.watchLater, ui.watchStatus, ui.clicked, ui.lastModified,
+                v.videoId, v.title, v.description, v.channelName, v.durationSeconds, v.publishedAt, v.thumbnailUrl)
+            FROM UserInteraction ui JOIN ui.video v
+            """;
+
+    String NEWEST_FIRST = " ORDER BY ui.lastModified DESC, ui.interactionId DESC";
+
+    // Keyset condition: strictly after (lastModified, interactionId) in newest-first order
+    String AFTER_CURSOR = """
+             AND (ui.lastModified < :lastModified
+                  OR (ui.lastModified = :lastModified AND ui.interactionId < :interactionId))
+            """;
+
+    // History, newest first. Pass Pageable.ofSize(limit); paging continues with the *After variant.
+    @Query(VIEW_SELECT + "WHERE ui.user.userId = :userId" + NEWEST_FIRST)
+    List<InteractionView> findHistory(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE ui.user.userId = :userId" + AFTER_CURSOR + NEWEST_FIRST)
+    List<InteractionView> findHistoryAfter(@Param("userId") Long userId,
+                                           @Param("lastModified") LocalDateTime lastModified,
+                                           @Param("interactionId") Long interactionId,
+                                           Pageable pageable);
+
+    // Watch Later list, newest first
+    @Query(VIEW_SELECT + "WHERE ui.user.userId = :userId AND ui.watchLater = true" + NEWEST_FIRST)
+    List<InteractionView> findWatchLater(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE ui.user.userId = :userId AND ui.watchLater = true" + AFTER_CURSOR + NEWEST_FIRST)
+    List<InteractionView> findWatchLaterAfter(@Param("userId") Long userId,
+                                              @Param("lastModified") LocalDateTime lastModified,
+                                              @Param("interactionId") Long interactionId,
+                                              Pageable pageable);
 
     void deleteByUserUserIdAndVideoVideoId(Long userId, String videoId);
 }
\ No newline at end of file
@@ -2,7 +2,11 @@ package com.example.youtube_recommender.repository;
 
 import com.example.youtube_recommender.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -16,4 +20,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Helper to check existence before registration
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Writes the preference vector if it is still at {@code version}, bumping the version.
+     * Returns 0 if another writer got there first.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE users
+            SET preference_embedding = cast(:embedding as vector), preference_version = :version + 1, updated_at = now()
+            WHERE user_id = :userId AND preference_version = :version
+            """, nativeQuery = true)
+    int updatePreference(@Param("userId") Long userId, @Param("embedding") float[] embedding, @Param("version") long version);
+}
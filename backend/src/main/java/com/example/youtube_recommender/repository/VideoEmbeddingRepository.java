@@ -1,13 +1,22 @@
 package com.example.youtube_recommender.repository;
 
 import com.example.youtube_recommender.model.VideoEmbedding;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public interface VideoEmbeddingRepository extends JpaRepository<VideoEmbedding, Long> {
@@ -24,5 +33,120 @@ public interface VideoEmbeddingRepository extends JpaRepository<VideoEmbedding,
             LIMIT :limit
            \s""", nativeQuery = true)
     List<VideoEmbedding> findSimilarByVector(@Param("embedding") float[] embedding, @Param("limit") int limit);
+
+    /**
+     * Same as {@link #findSimilarByVector}, skipping the given videos. {@code excludedIds} must not be empty.
+     */
+    @Query(value = """
+            SELECT * FROM video_embeddings
+            WHERE video_id NOT IN (:excludedIds)
+            ORDER BY semantic_embedding <=> cast(:embedding as vector)
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<VideoEmbedding> findSimilarByVectorExcluding(@Param("embedding") float[] embedding,
+                                                      @Param("limit") int limit,
+                                                      @Param("excludedIds") Collection<String> excludedIds);
+
+    /**
+     * Second phase of two-phase search: the first-phase candidates (see ReducedEmbeddingService)
+     * re-ordered by the full vector. Only the candidates' full vectors are read.
+     */
+    @Query(value = """
+            SELECT * FROM video_embeddings
+            WHERE embedding_id IN (:ids)
+            ORDER BY semantic_embedding <=> cast(:embedding as vector)
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<VideoEmbedding> findSimilarAmong(@Param("ids") Collection<Long> ids,
+                                          @Param("embedding") float[] embedding,
+                                          @Param("limit") int limit);
+
     Optional<VideoEmbedding> findByVideoVideoId(String videoId);
-}
\ No newline at end of file
+
+    boolean existsByVideoVideoId(String videoId);
+
+    /**
+     * Loads embeddings (with their Video) for a set of IDs in one query, e.g. to hydrate index hits.
+     */
+    @Query("SELECT e FROM VideoEmbedding e JOIN FETCH e.video v WHERE v.videoId IN :videoIds")
+    List<VideoEmbedding> findByVideoIds(@Param("videoIds") Collection<String> videoIds);
+
+    /**
+     * {@link #findByVideoIds} in the order of {@code videoIds}; IDs without an embedding are skipped.
+     */
+    default List<VideoEmbedding> findByVideoIdsInOrder(List<String> videoIds) {
+        if (videoIds.isEmpty()) return new ArrayList<>();
+        Map<String, VideoEmbedding> byId = findByVideoIds(videoIds).stream()
+                .collect(Collectors.toMap(e -> e.getVideo().getVideoId(), Function.identity()));
+        List<VideoEmbedding> ordered = new ArrayList<>(videoIds.size());
+        for (String id : videoIds) {
+            VideoEmbedding e = byId.get(id);
+            if (e != null) ordered.add(e);
+        }
+        return ordered;
+    }
+
+    /**
+     * Keyset-paged scan of all vectors, ordered by embeddingId. Pass the last seen id to get the next page.
+     */
+    @Query("""
+            SELECT new com.example.youtube_recommender.repository.EmbeddingVector(e.embeddingId, e.video.videoId, e.semanticEmbedding)
+            FROM VideoEmbedding e
+            WHERE e.embeddingId > :afterId
+            ORDER BY e.embeddingId
+            """)
+    List<EmbeddingVector> findVectorsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Keyset-paged scan of the searchable text (title, tags, summary), ordered by embeddingId.
+     */
+    @Query("""
+            SELECT new com.example.youtube_recommender.repository.LexicalDocument(e.embeddingId, v.videoId, v.title, v.tags, e.contentSummary)
+            FROM VideoEmbedding e JOIN e.video v
+            WHERE e.embeddingId > :afterId
+            ORDER BY e.embeddingId
+            """)
+    List<LexicalDocument> findDocumentsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Highest embedding ID created before the given time; index snapshots replay everything after it.
+     */
+    @Query("SELECT MAX(e.embeddingId) FROM VideoEmbedding e WHERE e.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Embeddings with their Video for the given IDs, ordered by embeddingId. Used to apply change-feed notifications.
+     */
+    @Query("SELECT e FROM VideoEmbedding e JOIN FETCH e.video WHERE e.embeddingId IN :ids ORDER BY e.embeddingId")
+    List<VideoEmbedding> findWithVideoByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Keyset-paged scan of embeddings with their Video, ordered by embeddingId.
+     */
+    @Query("SELECT e FROM VideoEmbedding e JOIN FETCH e.video WHERE e.embeddingId > :afterId ORDER BY e.embeddingId")
+    List<VideoEmbedding> findWithVideoAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * IDs of embeddings after {@code afterId} whose reduced vector is missing or of another size.
+     */
+    @Query(value = """
+            SELECT embedding_id FROM video_embeddings
+            WHERE embedding_id > :afterId
+              AND (reduced_embedding IS NULL OR vector_dims(reduced_embedding) <> :dimensions)
+            ORDER BY embedding_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findIdsWithoutReduced(@Param("afterId") long afterId, @Param("dimensions") int dimensions, @Param("limit") int limit);
+
+    @Query("""
+            SELECT new com.example.youtube_recommender.repository.EmbeddingVector(e.embeddingId, e.video.videoId, e.semanticEmbedding)
+            FROM VideoEmbedding e
+            WHERE e.embeddingId IN :ids
+            """)
+    List<EmbeddingVector> findVectorsByIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE video_embeddings SET reduced_embedding = cast(:reduced as vector) WHERE embedding_id = :embeddingId", nativeQuery = true)
+    int updateReduced(@Param("embeddingId") Long embeddingId, @Param("reduced") float[] reduced);
+}
@@ -0,0 +1,8 @@
+package com.example.youtube_recommender.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a video the ranker stages read: no title, description or tags.
+ */
+public record VideoFeatures(String videoId, Long viewCount, LocalDateTime publishedAt, Integer durationSeconds) {}
@@ -1,11 +1,58 @@
 package com.example.youtube_recommender.repository;
 
 import com.example.youtube_recommender.model.Video;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Repository
 public interface VideoRepository extends JpaRepository<Video, String> {
     // Basic CRUD is handled by JpaRepository.
     // videoId is a String (e.g., "dQw4w9WgXcQ"), so the ID type is String.
-}
\ No newline at end of file
+
+    /**
+     * Returns the subset of the given IDs that are already stored, in one round trip.
+     */
+    @Query("SELECT v.videoId FROM Video v WHERE v.videoId IN :videoIds")
+    Set<String> findExistingIds(@Param("videoIds") Collection<String> videoIds);
+
+    /**
+     * Keyset-paged scan of all video IDs. Pass the last seen ID (or "") to get the next page.
+     */
+    @Query("SELECT v.videoId FROM Video v WHERE v.videoId > :afterId ORDER BY v.videoId")
+    List<String> findIdsAfter(@Param("afterId") String afterId, Pageable pageable);
+
+    /**
+     * Ranking features for a set of videos in one query, without loading the entities.
+     */
+    @Query("""
+            SELECT new com.example.youtube_recommender.repository.VideoFeatures(v.videoId, v.viewCount, v.publishedAt, v.durationSeconds)
+            FROM Video v WHERE v.videoId IN :videoIds
+            """)
+    List<VideoFeatures> findFeaturesByIds(@Param("videoIds") Collection<String> videoIds);
+
+    /**
+     * {@link #findAllById} in the order of {@code videoIds}; unknown IDs are skipped.
+     */
+    default List<Video> findAllByIdInOrder(List<String> videoIds) {
+        if (videoIds.isEmpty()) return new ArrayList<>();
+        Map<String, Video> byId = findAllById(videoIds).stream()
+                .collect(Collectors.toMap(Video::getVideoId, Function.identity()));
+        List<Video> ordered = new ArrayList<>(videoIds.size());
+        for (String id : videoIds) {
+            Video video = byId.get(id);
+            if (video != null) ordered.add(video);
+        }
+        return ordered;
+    }
+}
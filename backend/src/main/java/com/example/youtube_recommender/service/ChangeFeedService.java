@@ -0,0 +1,364 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.event.ExclusionsChangedEvent;
+import com.example.youtube_recommender.event.PreferencePersistedEvent;
+import com.example.youtube_recommender.event.PreferenceUpdatedEvent;
+import com.example.youtube_recommender.event.VideoEmbeddedEvent;
+import com.example.youtube_recommender.model.VideoEmbedding;
+import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the in-memory state of several backend instances in sync through Postgres LISTEN/NOTIFY.
+ *
+ * Local changes ({@link VideoEmbeddedEvent}, {@link PreferencePersistedEvent}, {@link ExclusionsChangedEvent})
+ * are sent as compact notifications, "node|video|embeddingId" or "node|user|userId". A transaction's
+ * notifications are collected and sent in one statement just before it commits, on its connection:
+ * Postgres delivers them only on commit (and drops them on rollback), so other nodes never read a
+ * change before it is visible, and no extra pooled connection is needed. The NOTIFY runs under a
+ * savepoint, so a failed notification cannot roll the write back. Changes made outside a transaction
+ * are sent right away.
+ *
+ * Every node listens on a dedicated connection and applies other nodes' changes by re-reading the
+ * committed rows and publishing the same events locally, so the indexes and caches that already
+ * listen for them update incrementally:
+ * - video: the embedding and its video are loaded and a VideoEmbeddedEvent is published,
+ * - user: the cached exclusion bitmap is dropped, the preference vector is refreshed in
+ *   {@link PreferenceAccumulator} and a PreferenceUpdatedEvent is published.
+ * Notifications are not stored while a node is disconnected; on (re)connect the node replays
+ * embeddings created since shortly before it lost the connection and drops all exclusion bitmaps.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String VIDEO = "video";
+    private static final String USER = "user";
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final int CATCH_UP_BATCH_SIZE = 500;
+    // Embeddings committed around the disconnect may carry an earlier creation time than it
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    private final DataSource dataSource;
+    private final VideoEmbeddingRepository videoEmbeddingRepository;
+    private final PreferenceAccumulator preferenceAccumulator;
+    private final UserExclusionService userExclusionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final String channel;
+    private final Duration reconnectDelay;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    // Transaction resource key for the notifications collected in the current transaction
+    private final Object pendingKey = new Object();
+
+    // Set while this node re-publishes a remote change, so it isn't sent back out
+    private final ThreadLocal<Boolean> applyingRemote = ThreadLocal.withInitial(() -> false);
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile boolean connected = false;
+    private volatile Instant lastReceivedAt;
+    private volatile Thread listener;
+
+    public ChangeFeedService(DataSource dataSource,
+                             VideoEmbeddingRepository videoEmbeddingRepository,
+                             PreferenceAccumulator preferenceAccumulator,
+                             UserExclusionService userExclusionService,
+                             ApplicationEventPublisher eventPublisher,
+                             PipelineMetrics metrics,
+                             @Value("${recommender.change-feed.enabled:false}") boolean enabled,
+                             @Value("${recommender.change-feed.channel:recommender_changes}") String channel,
+                             @Value("${recommender.change-feed.reconnect-delay:PT5S}") Duration reconnectDelay) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid change feed channel name: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.videoEmbeddingRepository = videoEmbeddingRepository;
+        this.preferenceAccumulator = preferenceAccumulator;
+        this.userExclusionService = userExclusionService;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    // ---- Sending ------------------------------------------------------------------------------
+
+    @EventListener
+    public void onVideoEmbedded(VideoEmbeddedEvent event) {
+        if (event.embeddingId() != null) send(VIDEO, event.embeddingId());
+    }
+
+    @EventListener
+    public void onPreferencePersisted(PreferencePersistedEvent event) {
+        send(USER, event.userId());
+    }
+
+    @EventListener
+    public void onExclusionsChanged(ExclusionsChangedEvent event) {
+        send(USER, event.userId());
+    }
+
+    private record Notification(String type, String payload) {}
+
+    /**
+     * Called in the publisher's transaction (plain @EventListener): the notification joins the
+     * transaction's batch. Without a transaction bound to the database it is sent right away.
+     */
+    private void send(String type, long id) {
+        if (!enabled || applyingRemote.get()) return;
+        Notification notification = new Notification(type, nodeId + "|" + type + "|" + id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.hasResource(dataSource)) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                deliver(connection, List.of(notification));
+            } catch (SQLException | RuntimeException e) {
+                failed(List.of(notification), e);
+            }
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Notification> pending = (List<Notification>) TransactionSynchronizationManager.getResource(pendingKey);
+        if (pending == null) {
+            List<Notification> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(pendingKey, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    deliverInTransaction(batch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingKey);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(notification);
+    }
+
+    // On the transaction's connection, under a savepoint so a failure here can't abort the transaction
+    private void deliverInTransaction(List<Notification> batch) {
+        if (batch.isEmpty()) return;
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                deliver(connection, batch);
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            failed(batch, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // One round trip for the whole batch
+    private void deliver(Connection connection, List<Notification> batch) throws SQLException {
+        String[] payloads = batch.stream().map(Notification::payload).toArray(String[]::new);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_notify(?, payload) FROM unnest(?) AS payload")) {
+            statement.setString(1, channel);
+            statement.setArray(2, connection.createArrayOf("text", payloads));
+            statement.execute();
+        }
+        sent.addAndGet(batch.size());
+        for (Notification notification : batch) {
+            metrics.count(PipelineMetrics.CHANGE_FEED, 1, "direction", "sent", "type", notification.type());
+        }
+    }
+
+    private void failed(List<Notification> batch, Exception e) {
+        // The write stands; other nodes miss these changes until they reconnect or restart
+        for (Notification notification : batch) {
+            metrics.count(PipelineMetrics.CHANGE_FEED, 1, "direction", "failed", "type", notification.type());
+        }
+        log.warn("Failed to send {} change notification(s): {}", batch.size(), e.getMessage());
+    }
+
+    // ---- Listening ----------------------------------------------------------------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        if (!enabled) {
+            log.info("Change feed disabled; other nodes' changes show up after a restart.");
+            return;
+        }
+        listener = Thread.ofVirtual().name("change-feed-listener").start(this::listen);
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        running = false;
+        Thread current = listener;
+        if (current != null) current.interrupt();
+    }
+
+    private void listen() {
+        // The startup loaders may have finished their scan just before a change was committed
+        Instant missedSince = Instant.now();
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                connected = true;
+                log.info("Change feed node {} listening on '{}'", nodeId, channel);
+                catchUp(missedSince, reconnect);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null && notifications.length > 0) apply(notifications);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) break;
+                if (connected) missedSince = Instant.now();
+                log.warn("Change feed connection lost; reconnecting in {}: {}", reconnectDelay, e.getMessage());
+            } finally {
+                connected = false;
+            }
+            reconnect = true;
+            try {
+                Thread.sleep(reconnectDelay);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Applies a burst of notifications from other nodes, loading all changed embeddings in one query.
+     */
+    private void apply(PGNotification[] notifications) {
+        Set<Long> embeddingIds = new LinkedHashSet<>();
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (PGNotification notification : notifications) {
+            String[] parts = notification.getParameter().split("\\|");
+            if (parts.length != 3 || parts[0].equals(nodeId)) continue;
+            try {
+                long id = Long.parseLong(parts[2]);
+                switch (parts[1]) {
+                    case VIDEO -> embeddingIds.add(id);
+                    case USER -> userIds.add(id);
+                    default -> {
+                        log.debug("Ignoring unknown change feed notification '{}'", notification.getParameter());
+                        continue;
+                    }
+                }
+                received.incrementAndGet();
+                metrics.count(PipelineMetrics.CHANGE_FEED, 1, "direction", "received", "type", parts[1]);
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed change feed notification '{}'", notification.getParameter());
+            }
+        }
+        if (embeddingIds.isEmpty() && userIds.isEmpty()) return;
+        lastReceivedAt = Instant.now();
+
+        if (!embeddingIds.isEmpty()) republish(videoEmbeddingRepository.findWithVideoByIds(embeddingIds));
+        for (Long userId : userIds) {
+            userExclusionService.invalidate(userId);
+            float[] preference = preferenceAccumulator.refresh(userId);
+            if (preference != null) republish(new PreferenceUpdatedEvent(userId, preference));
+        }
+    }
+
+    /**
+     * Replays embeddings created since shortly before {@code since}. After a reconnect, user
+     * notifications may have been missed as well, so every exclusion bitmap is reloaded lazily.
+     */
+    private void catchUp(Instant since, boolean reconnect) {
+        long t0 = System.nanoTime();
+        LocalDateTime before = LocalDateTime.ofInstant(since.minus(CATCH_UP_MARGIN), ZoneId.systemDefault());
+        Long lastId = videoEmbeddingRepository.findMaxIdCreatedBefore(before);
+        int replayed = 0;
+        while (true) {
+            List<VideoEmbedding> page = videoEmbeddingRepository.findWithVideoAfter(
+                    lastId == null ? 0 : lastId, PageRequest.of(0, CATCH_UP_BATCH_SIZE));
+            if (page.isEmpty()) break;
+            republish(page);
+            replayed += page.size();
+            lastId = page.getLast().getEmbeddingId();
+        }
+        if (reconnect) userExclusionService.invalidateAll();
+        if (replayed > 0 || reconnect) {
+            log.info("Change feed caught up: replayed {} embeddings in {}ms", replayed, (System.nanoTime() - t0) / 1_000_000L);
+        }
+    }
+
+    private void republish(List<VideoEmbedding> embeddings) {
+        for (VideoEmbedding embedding : embeddings) {
+            republish(new VideoEmbeddedEvent(embedding.getVideo().getVideoId(), embedding.getEmbeddingId(),
+                    embedding.getSemanticEmbedding(), embedding.getVideo().getTitle(), embedding.getVideo().getTags(),
+                    embedding.getContentSummary()));
+        }
+    }
+
+    // No transaction is active here, so the after-commit listeners run right away on this thread
+    private void republish(Object event) {
+        applyingRemote.set(true);
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Failed to apply remote change {}: {}", event.getClass().getSimpleName(), e.getMessage());
+        } finally {
+            applyingRemote.set(false);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("nodeId", nodeId);
+        stats.put("channel", channel);
+        stats.put("connected", connected);
+        stats.put("sent", sent.get());
+        stats.put("received", received.get());
+        stats.put("lastReceivedAt", lastReceivedAt == null ? null : lastReceivedAt.toString());
+        return stats;
+    }
+}
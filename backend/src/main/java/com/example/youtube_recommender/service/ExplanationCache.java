@@ -0,0 +1,126 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.event.VideoEmbeddedEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Caches generated RAG explanations. The prompt only depends on the query and the selected videos
+ * (title + summary), so the key is the normalized query plus the ordered list of video IDs.
+ *
+ * Entries are evicted by size and age, and dropped for a video whenever its summary is (re)written
+ * ({@link VideoEmbeddedEvent}) or {@link #invalidateVideo} is called.
+ *
+ * The cache is asynchronous, so generation runs on a virtual thread outside Caffeine's map lock and
+ * a slow LLM call never blocks other keys; concurrent requests for the same key share one call.
+ */
+@Service
+public class ExplanationCache {
+
+    private record Key(String query, List<String> videoIds) {}
+
+    private final boolean enabled;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<Key, String> cache;
+
+    public ExplanationCache(PipelineMetrics metrics,
+                            @Value("${recommender.explanation-cache.enabled:true}") boolean enabled,
+                            @Value("${recommender.explanation-cache.max-size:5000}") long maxSize,
+                            @Value("${recommender.explanation-cache.ttl:PT6H}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .executor(executor)
+                .recordStats()
+                .buildAsync();
+        metrics.monitor(cache.synchronous(), "explanations");
+    }
+
+    /**
+     * Returns the cached explanation, or generates and caches it.
+     */
+    public String get(String query, List<String> videoIds, Supplier<String> generate) {
+        if (!enabled) return generate.get();
+        // A failed generation is not cached.
+        try {
+            return cache.get(key(query, videoIds), k -> generate.get()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Streaming variant: replays a cached explanation as one token, otherwise passes the
+     * generated tokens through and caches the full text once the stream completes.
+     * An explanation still being generated for another request is not waited for.
+     */
+    public Flux<String> stream(String query, List<String> videoIds, Supplier<Flux<String>> generate) {
+        if (!enabled) return generate.get();
+        Key key = key(query, videoIds);
+        CompletableFuture<String> cached = cache.getIfPresent(key);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) return Flux.just(cached.join());
+
+        return Flux.defer(() -> {
+            StringBuilder text = new StringBuilder();
+            return generate.get()
+                    .doOnNext(text::append)
+                    // Only complete streams are cached; cancelled or failed ones are not.
+                    .doOnComplete(() -> cache.put(key, CompletableFuture.completedFuture(text.toString())));
+        });
+    }
+
+    /**
+     * Drops every explanation that mentions the video, e.g. after its summary changed.
+     */
+    public void invalidateVideo(String videoId) {
+        cache.asMap().keySet().removeIf(key -> key.videoIds().contains(videoId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoEmbedded(VideoEmbeddedEvent event) {
+        invalidateVideo(event.videoId());
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats s = cache.synchronous().stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", cache.synchronous().estimatedSize());
+        stats.put("hits", s.hitCount());
+        stats.put("misses", s.missCount());
+        stats.put("evictions", s.evictionCount());
+        stats.put("hitRate", s.hitRate());
+        return stats;
+    }
+
+    private static Key key(String query, List<String> videoIds) {
+        return new Key(QueryEmbeddingCache.normalize(query), List.copyOf(videoIds));
+    }
+}
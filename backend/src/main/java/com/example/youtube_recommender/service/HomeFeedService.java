@@ -0,0 +1,158 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.event.PreferenceUpdatedEvent;
+import com.example.youtube_recommender.model.User;
+import com.example.youtube_recommender.repository.UserRepository;
+import com.example.youtube_recommender.repository.VideoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed home feed: the top-N videos for each active user's preference vector.
+ *
+ * Feeds are built in the background and kept in memory as ranked video IDs, so
+ * GET /api/recommendations/feed is a list slice plus one lookup of that page's videos instead of a
+ * vector search per page view. A feed is rebuilt
+ * - shortly after the user's preference vector changes (bursts of clicks coalesce into one rebuild),
+ * - periodically while the user is active, so newly ingested videos show up.
+ * Users who haven't opened their feed within the active window are dropped until they come back.
+ */
+@Service
+public class HomeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(HomeFeedService.class);
+
+    private final UserRepository userRepository;
+    private final VideoRepository videoRepository;
+    private final VectorIndexService vectorIndexService;
+    private final UserExclusionService userExclusionService;
+    private final PreferenceAccumulator preferenceAccumulator;
+    private final PipelineMetrics metrics;
+    private final int feedSize;
+    private final Duration activeWindow;
+
+    private record HomeFeed(List<String> videoIds, Instant builtAt) {}
+
+    private final Map<Long, HomeFeed> feeds = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> lastAccess = new ConcurrentHashMap<>();
+    // Latest preference vector per user waiting for a rebuild
+    private final Map<Long, float[]> pending = new ConcurrentHashMap<>();
+
+    public HomeFeedService(UserRepository userRepository,
+                           VideoRepository videoRepository,
+                           VectorIndexService vectorIndexService,
+                           UserExclusionService userExclusionService,
+                           PreferenceAccumulator preferenceAccumulator,
+                           PipelineMetrics metrics,
+                           @Value("${recommender.feed.size:100}") int feedSize,
+                           @Value("${recommender.feed.active-window:PT24H}") Duration activeWindow) {
+        this.userRepository = userRepository;
+        this.videoRepository = videoRepository;
+        this.vectorIndexService = vectorIndexService;
+        this.userExclusionService = userExclusionService;
+        this.preferenceAccumulator = preferenceAccumulator;
+        this.metrics = metrics;
+        this.feedSize = Math.max(1, feedSize);
+        this.activeWindow = activeWindow;
+        metrics.gauge(PipelineMetrics.FEED_USERS, feeds, Map::size);
+    }
+
+    /**
+     * One page of the user's feed. Builds it synchronously the first time the user asks.
+     */
+    public Map<String, Object> page(Long userId, int page, int size) {
+        HomeFeed feed = feeds.get(userId);
+        if (feed == null) {
+            User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+            feed = build(userId, preferenceAccumulator.current(user));
+        }
+        // Only known users are tracked, so unknown IDs can't grow the map
+        lastAccess.put(userId, Instant.now());
+
+        List<String> ids = feed.videoIds();
+        int from = Math.min(Math.max(0, page) * size, ids.size());
+        int to = Math.min(from + size, ids.size());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("page", page);
+        response.put("size", size);
+        response.put("total", ids.size());
+        response.put("hasMore", to < ids.size());
+        response.put("builtAt", feed.builtAt().toString());
+        response.put("videos", videoRepository.findAllByIdInOrder(ids.subList(from, to)));
+        return response;
+    }
+
+    // ---- Rebuilds -----------------------------------------------------------------------------
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPreferenceUpdated(PreferenceUpdatedEvent event) {
+        // Only users who use the feed are worth rebuilding for
+        if (lastAccess.containsKey(event.userId())) {
+            pending.put(event.userId(), event.preference());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommender.feed.rebuild-delay-ms:1000}")
+    public void rebuildChanged() {
+        for (Long userId : List.copyOf(pending.keySet())) {
+            float[] preference = pending.remove(userId);
+            if (preference == null) continue;
+            try {
+                build(userId, preference);
+            } catch (Exception e) {
+                log.warn("Failed to rebuild home feed for user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Refreshes every active user's feed (picks up new videos) and forgets inactive users.
+     */
+    @Scheduled(fixedDelayString = "${recommender.feed.refresh-interval-ms:600000}",
+            initialDelayString = "${recommender.feed.refresh-interval-ms:600000}")
+    public void refreshActive() {
+        Instant cutoff = Instant.now().minus(activeWindow);
+        lastAccess.entrySet().removeIf(e -> {
+            if (e.getValue().isBefore(cutoff)) {
+                feeds.remove(e.getKey());
+                return true;
+            }
+            return false;
+        });
+
+        List<Long> active = new ArrayList<>(lastAccess.keySet());
+        if (active.isEmpty()) return;
+        long t0 = System.nanoTime();
+        for (User user : userRepository.findAllById(active)) {
+            try {
+                build(user.getUserId(), preferenceAccumulator.current(user));
+            } catch (Exception e) {
+                log.warn("Failed to refresh home feed for user {}: {}", user.getUserId(), e.getMessage());
+            }
+        }
+        log.info("Refreshed {} home feeds in {}ms", active.size(), (System.nanoTime() - t0) / 1_000_000L);
+    }
+
+    private HomeFeed build(Long userId, float[] preference) {
+        // Users without a preference vector yet get an empty feed until their first interaction.
+        List<String> videoIds = preference == null ? List.of()
+                : metrics.time(PipelineMetrics.FEED_BUILD, () -> vectorIndexService.findSimilarIds(preference, feedSize,
+                        userExclusionService.exclusionsFor(userId)));
+        HomeFeed feed = new HomeFeed(List.copyOf(videoIds), Instant.now());
+        feeds.put(userId, feed);
+        return feed;
+    }
+}
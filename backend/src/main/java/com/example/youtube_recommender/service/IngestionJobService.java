@@ -0,0 +1,423 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.enums.IngestionItemStatus;
+import com.example.youtube_recommender.enums.IngestionJobStatus;
+import com.example.youtube_recommender.model.IngestionJob;
+import com.example.youtube_recommender.model.IngestionJobItem;
+import com.example.youtube_recommender.repository.IngestionJobItemRepository;
+import com.example.youtube_recommender.repository.IngestionJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs ingestion as background jobs on a bounded pool, so HTTP callers get a job ID right away.
+ *
+ * A job first discovers new video IDs topic by topic and stores each one as a PENDING item,
+ * then works through the items in chunks, marking each SAVED, SKIPPED or FAILED as it goes.
+ * Both phases are checkpointed in the database: after a crash or restart, unfinished jobs are
+ * picked up again from the first undiscovered topic and the remaining PENDING items.
+ *
+ * Several nodes may share the jobs table, so a node only works on jobs it holds the lease for.
+ * It renews the lease of its jobs every heartbeat interval; a job whose lease has expired (its
+ * node crashed or was stopped) is claimed with a conditional UPDATE by the first node to notice,
+ * and a node that finds its lease taken over stops the job at the next checkpoint. Heartbeats run on
+ * a thread of their own, so a busy shared scheduler can never let a live job's lease expire.
+ */
+@Service
+public class IngestionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionJobService.class);
+    private static final Set<IngestionJobStatus> UNFINISHED = Set.of(IngestionJobStatus.QUEUED, IngestionJobStatus.RUNNING);
+
+    private final IngestionJobRepository jobRepository;
+    private final IngestionJobItemRepository itemRepository;
+    private final VideoIngestionService ingestionService;
+    private final KnownVideoIdFilter knownVideoIdFilter;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService leaseScheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("ingestion-lease").daemon().factory());
+    private final int chunkSize;
+    private final Duration lease;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Jobs queued or running in this process; guards against running the same job twice
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    // Jobs whose lease another node has taken over; their workers stop at the next checkpoint
+    private final Set<String> lost = ConcurrentHashMap.newKeySet();
+    private volatile boolean shuttingDown = false;
+
+    public IngestionJobService(IngestionJobRepository jobRepository,
+                               IngestionJobItemRepository itemRepository,
+                               VideoIngestionService ingestionService,
+                               KnownVideoIdFilter knownVideoIdFilter,
+                               @Value("${recommender.ingestion.jobs.workers:2}") int workers,
+                               @Value("${recommender.ingestion.jobs.queue-capacity:100}") int queueCapacity,
+                               @Value("${recommender.ingestion.jobs.chunk-size:16}") int chunkSize,
+                               @Value("${recommender.ingestion.jobs.lease:PT2M}") Duration lease,
+                               @Value("${recommender.ingestion.jobs.heartbeat-interval-ms:30000}") long heartbeatIntervalMs) {
+        this.jobRepository = jobRepository;
+        this.itemRepository = itemRepository;
+        this.ingestionService = ingestionService;
+        this.knownVideoIdFilter = knownVideoIdFilter;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.lease = lease;
+        int threads = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("ingestion-job-", 1).factory());
+        long interval = Math.max(1, heartbeatIntervalMs);
+        leaseScheduler.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // ---- Submission ---------------------------------------------------------------------------
+
+    /**
+     * Creates a QUEUED job and hands it to the pool. Fails with 429 when the queue is full.
+     */
+    public IngestionJob submit(List<String> topics, int maxPerTopic) {
+        List<String> cleaned = topics == null ? List.of() : topics.stream()
+                .filter(topic -> topic != null && !topic.isBlank())
+                .map(String::strip)
+                .distinct()
+                .toList();
+        if (cleaned.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one topic is required");
+        }
+        if (maxPerTopic <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxPerTopic must be positive");
+        }
+
+        IngestionJob job = jobRepository.save(IngestionJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .status(IngestionJobStatus.QUEUED)
+                .topics(String.join("\n", cleaned))
+                .maxPerTopic(maxPerTopic)
+                .ownerNode(nodeId)
+                .heartbeatAt(LocalDateTime.now())
+                .build());
+        try {
+            enqueue(job.getJobId());
+        } catch (RejectedExecutionException e) {
+            jobRepository.delete(job);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Ingestion queue is full, try again later");
+        }
+        log.info("Queued ingestion job {} for {} topics", job.getJobId(), cleaned.size());
+        return job;
+    }
+
+    /**
+     * Re-queues a finished or failed job; its FAILED items get another attempt.
+     */
+    public IngestionJob resume(String jobId) {
+        IngestionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingestion job not found"));
+        if (active.contains(jobId)) {
+            return job;
+        }
+        if (!claim(jobId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ingestion job is running on another node");
+        }
+
+        int retried = itemRepository.updateStatus(jobId, IngestionItemStatus.FAILED, IngestionItemStatus.PENDING);
+        job.setStatus(IngestionJobStatus.QUEUED);
+        job.setError(null);
+        job.setFinishedAt(null);
+        job = jobRepository.save(job);
+        try {
+            enqueue(jobId);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Ingestion queue is full, try again later");
+        }
+        log.info("Resumed ingestion job {} ({} failed videos retried)", jobId, retried);
+        return job;
+    }
+
+    /**
+     * Picks up unfinished jobs whose lease has expired: jobs of a node that crashed or was stopped,
+     * including this application's own previous run. Jobs other live nodes are working on are left alone.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        for (IngestionJob job : jobRepository.findByStatusIn(UNFINISHED)) {
+            if (active.contains(job.getJobId()) || !claim(job.getJobId())) continue;
+            try {
+                enqueue(job.getJobId());
+                log.info("Resuming interrupted ingestion job {}", job.getJobId());
+            } catch (RejectedExecutionException e) {
+                // Not renewed, so the lease lapses and another node (or a later sweep) takes the job
+                log.warn("Could not resume ingestion job {}: queue is full", job.getJobId());
+            }
+        }
+    }
+
+    /**
+     * Renews the leases of this node's jobs, then takes over jobs whose lease has expired.
+     */
+    private void heartbeat() {
+        if (shuttingDown) return;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (String jobId : active) {
+                if (jobRepository.renew(jobId, nodeId, now) == 0 && lost.add(jobId)) {
+                    log.warn("Ingestion job {} was taken over by another node; stopping it here", jobId);
+                }
+            }
+            resumeUnfinished();
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next beat retries well within the lease
+            log.warn("Ingestion lease heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean claim(String jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobRepository.claim(jobId, nodeId, now, now.minus(lease), UNFINISHED) == 0) return false;
+        lost.remove(jobId);
+        return true;
+    }
+
+    private void enqueue(String jobId) {
+        if (!active.add(jobId)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    active.remove(jobId);
+                    lost.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            active.remove(jobId);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Interrupted jobs stay RUNNING in the database so another node or the next start resumes them
+        shuttingDown = true;
+        leaseScheduler.shutdownNow();
+        executor.shutdownNow();
+        if (executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            // Nothing runs here any more: hand the jobs over now instead of after the lease
+            jobRepository.release(nodeId);
+        }
+    }
+
+    // ---- Execution ----------------------------------------------------------------------------
+
+    private void run(String jobId) {
+        IngestionJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || shuttingDown || lost.contains(jobId)) return;
+
+        job.setStatus(IngestionJobStatus.RUNNING);
+        if (job.getStartedAt() == null) job.setStartedAt(LocalDateTime.now());
+        // The items table is the source of truth; counters may lag it after a crash
+        refreshCounters(job);
+        job.setResumedAt(LocalDateTime.now());
+        job.setProcessedAtResume(job.processedVideos());
+        job = jobRepository.save(job);
+
+        try {
+            job = discover(job);
+            job = process(job);
+
+            job.setStatus(IngestionJobStatus.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            log.info("Ingestion job {} completed: {} saved, {} skipped, {} failed",
+                    jobId, job.getSavedVideos(), job.getSkippedVideos(), job.getFailedVideos());
+        } catch (Exception e) {
+            if (shuttingDown || Thread.currentThread().isInterrupted()) {
+                log.info("Ingestion job {} interrupted by shutdown; it will resume on next start", jobId);
+                return;
+            }
+            if (lost.contains(jobId)) {
+                log.info("Ingestion job {} stopped: another node owns it now", jobId);
+                return;
+            }
+            log.error("Ingestion job {} failed: {}", jobId, e.getMessage());
+            // Reload: the phases checkpoint through their own copies of the row
+            IngestionJob failed = jobRepository.findById(jobId).orElse(job);
+            failed.setStatus(IngestionJobStatus.FAILED);
+            failed.setError(e.getMessage());
+            failed.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(failed);
+        }
+    }
+
+    /**
+     * Phase 1: searches every topic not searched yet and queues its new videos as PENDING items.
+     */
+    private IngestionJob discover(IngestionJob job) {
+        List<String> topics = topics(job);
+        Set<String> queued = new HashSet<>(itemRepository.findVideoIds(job.getJobId()));
+
+        for (int t = job.getDiscoveredTopics(); t < topics.size(); t++) {
+            checkRunning(job.getJobId());
+            String topic = topics.get(t);
+            List<IngestionJobItem> items = new ArrayList<>();
+            for (String videoId : ingestionService.discoverNew(topic, job.getMaxPerTopic())) {
+                if (queued.add(videoId)) {
+                    items.add(IngestionJobItem.builder()
+                            .jobId(job.getJobId())
+                            .videoId(videoId)
+                            .topic(topic)
+                            .status(IngestionItemStatus.PENDING)
+                            .build());
+                }
+            }
+            itemRepository.saveAll(items);
+
+            job.setDiscoveredTopics(t + 1);
+            job.setTotalVideos(job.getTotalVideos() + items.size());
+            job = jobRepository.save(job);
+            log.info("Ingestion job {}: topic '{}' queued {} videos", job.getJobId(), topic, items.size());
+        }
+        return job;
+    }
+
+    /**
+     * Phase 2: ingests PENDING items chunk by chunk, checkpointing each chunk's outcome.
+     */
+    private IngestionJob process(IngestionJob job) {
+        while (true) {
+            checkRunning(job.getJobId());
+            List<IngestionJobItem> chunk = itemRepository.findByJobIdAndStatusOrderByItemId(
+                    job.getJobId(), IngestionItemStatus.PENDING, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) return job;
+
+            // Videos stored since discovery (another job, or a crash right after persisting) are skipped
+            Set<String> fresh = new HashSet<>(knownVideoIdFilter.filterNew(
+                    chunk.stream().map(IngestionJobItem::getVideoId).toList()));
+            Set<String> saved = new HashSet<>(ingestionService.ingestByIds(
+                    chunk.stream().map(IngestionJobItem::getVideoId).filter(fresh::contains).toList()));
+
+            for (IngestionJobItem item : chunk) {
+                if (!fresh.contains(item.getVideoId())) {
+                    item.setStatus(IngestionItemStatus.SKIPPED);
+                    job.setSkippedVideos(job.getSkippedVideos() + 1);
+                } else if (saved.contains(item.getVideoId())) {
+                    item.setStatus(IngestionItemStatus.SAVED);
+                    job.setSavedVideos(job.getSavedVideos() + 1);
+                } else {
+                    item.setStatus(IngestionItemStatus.FAILED);
+                    job.setFailedVideos(job.getFailedVideos() + 1);
+                }
+            }
+            itemRepository.saveAll(chunk);
+            job = jobRepository.save(job);
+        }
+    }
+
+    private void checkRunning(String jobId) {
+        if (shuttingDown || Thread.currentThread().isInterrupted()) {
+            throw new IllegalStateException("Ingestion is shutting down");
+        }
+        if (lost.contains(jobId)) {
+            throw new IllegalStateException("Ingestion job was taken over by another node");
+        }
+    }
+
+    private void refreshCounters(IngestionJob job) {
+        String jobId = job.getJobId();
+        long pending = itemRepository.countByJobIdAndStatus(jobId, IngestionItemStatus.PENDING);
+        job.setSavedVideos((int) itemRepository.countByJobIdAndStatus(jobId, IngestionItemStatus.SAVED));
+        job.setSkippedVideos((int) itemRepository.countByJobIdAndStatus(jobId, IngestionItemStatus.SKIPPED));
+        job.setFailedVideos((int) itemRepository.countByJobIdAndStatus(jobId, IngestionItemStatus.FAILED));
+        job.setTotalVideos((int) pending + job.processedVideos());
+    }
+
+    private static List<String> topics(IngestionJob job) {
+        return job.getTopics().lines().toList();
+    }
+
+    // ---- Status -------------------------------------------------------------------------------
+
+    public Map<String, Object> status(String jobId) {
+        IngestionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingestion job not found"));
+        return toStatus(job);
+    }
+
+    public List<Map<String, Object>> recent() {
+        return jobRepository.findTop20ByOrderByCreatedAtDesc().stream().map(this::toStatus).toList();
+    }
+
+    /**
+     * Progress snapshot. Throughput and ETA are measured from the latest (re)start and only cover
+     * videos discovered so far, so the ETA grows while topics are still being searched.
+     */
+    private Map<String, Object> toStatus(IngestionJob job) {
+        List<String> topics = topics(job);
+        int processed = job.processedVideos();
+        int pending = Math.max(0, job.getTotalVideos() - processed);
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getJobId());
+        status.put("status", job.getStatus());
+        status.put("topics", topics);
+        status.put("topicsDiscovered", job.getDiscoveredTopics());
+        status.put("maxPerTopic", job.getMaxPerTopic());
+        status.put("totalVideos", job.getTotalVideos());
+        status.put("processedVideos", processed);
+        status.put("pendingVideos", pending);
+        status.put("savedVideos", job.getSavedVideos());
+        status.put("skippedVideos", job.getSkippedVideos());
+        status.put("failedVideos", job.getFailedVideos());
+        status.put("createdAt", job.getCreatedAt());
+        status.put("startedAt", job.getStartedAt());
+        status.put("finishedAt", job.getFinishedAt());
+        status.put("ownerNode", job.getOwnerNode());
+        status.put("heartbeatAt", job.getHeartbeatAt());
+
+        if (job.getResumedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            double seconds = Math.max(0.001, Duration.between(job.getResumedAt(), end).toMillis() / 1000.0);
+            double perMinute = (processed - job.getProcessedAtResume()) / seconds * 60.0;
+            status.put("elapsedSeconds", Math.round(seconds));
+            status.put("videosPerMinute", Math.round(perMinute * 10) / 10.0);
+            if (job.getStatus() == IngestionJobStatus.RUNNING && perMinute > 0) {
+                status.put("etaSeconds", Math.round(pending / perMinute * 60.0));
+            }
+        }
+        if (job.getError() != null) {
+            status.put("error", job.getError());
+        }
+        return status;
+    }
+
+    public Map<String, Object> poolStats() {
+        return Map.of(
+                "nodeId", nodeId,
+                "workers", executor.getMaximumPoolSize(),
+                "activeJobs", executor.getActiveCount(),
+                "queuedJobs", executor.getQueue().size());
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.enums.InteractionAction;
+import com.example.youtube_recommender.event.InteractionEvent;
+import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind log for user interactions.
+ *
+ * Requests only append to an in-memory queue and return. A background flush drains the queue,
+ * groups events per user (keeping their order) and applies each group with
+ * {@link RecommendationService#recordInteractions}: one batch of interaction rows and one
+ * preference-vector update per user, instead of one full read-modify-write per click.
+ *
+ * Unknown videos are rejected before queueing (404), checked against the in-memory vector index so
+ * a click costs no database round-trip (the database is asked only while the index is loading or
+ * disabled). Unknown users are not checked up front: the flush writes each user's events on their
+ * own and drops the ones it cannot apply.
+ * All writes go through the flush, so one user's events are applied in order. If the queue stays
+ * full for {@code offer-timeout-ms} the request is rejected with 429 instead of writing on the
+ * request thread.
+ * Pending events are flushed on shutdown; a crash loses at most one flush interval of clicks.
+ */
+@Service
+public class InteractionEventQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(InteractionEventQueue.class);
+
+    private final RecommendationService recommendationService;
+    private final VectorIndexService vectorIndexService;
+    private final VideoEmbeddingRepository videoEmbeddingRepository;
+    private final PipelineMetrics metrics;
+    private final BlockingQueue<InteractionEvent> queue;
+    private final int maxBatch;
+    private final long offerTimeoutMs;
+
+    public InteractionEventQueue(RecommendationService recommendationService,
+                                 VectorIndexService vectorIndexService,
+                                 VideoEmbeddingRepository videoEmbeddingRepository,
+                                 PipelineMetrics metrics,
+                                 @Value("${recommender.interactions.queue-capacity:10000}") int capacity,
+                                 @Value("${recommender.interactions.max-batch:1000}") int maxBatch,
+                                 @Value("${recommender.interactions.offer-timeout-ms:50}") long offerTimeoutMs) {
+        this.recommendationService = recommendationService;
+        this.vectorIndexService = vectorIndexService;
+        this.videoEmbeddingRepository = videoEmbeddingRepository;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.metrics = metrics;
+        metrics.gauge(PipelineMetrics.INTERACTION_QUEUE, queue, BlockingQueue::size);
+    }
+
+    /**
+     * Validates and queues an interaction, then returns without waiting for it to be applied.
+     */
+    public void submit(Long userId, String videoId, InteractionAction action) {
+        if (userId == null || videoId == null || videoId.isBlank() || action == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId, videoId and action are required");
+        }
+        if (!isKnownVideo(videoId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Video not found");
+        }
+        InteractionEvent event = new InteractionEvent(userId, videoId, action, Instant.now());
+        boolean queued;
+        try {
+            queued = queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            log.warn("Interaction queue full; rejecting event for user {}", userId);
+            metrics.count(PipelineMetrics.INTERACTION_REJECTED, 1);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many interactions, try again later");
+        }
+    }
+
+    private boolean isKnownVideo(String videoId) {
+        if (vectorIndexService.isReady()) {
+            return vectorIndexService.containsVideo(videoId);
+        }
+        return videoEmbeddingRepository.existsByVideoVideoId(videoId);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Drains everything currently queued. Also called before operations that must see
+     * all earlier interactions (e.g. deleting one).
+     */
+    @Scheduled(fixedDelayString = "${recommender.interactions.flush-interval-ms:200}")
+    public synchronized void flush() {
+        List<InteractionEvent> drained = new ArrayList<>();
+        while (queue.drainTo(drained, maxBatch) > 0) {
+            applyGroupedByUser(drained);
+            drained.clear();
+        }
+    }
+
+    private void applyGroupedByUser(List<InteractionEvent> events) {
+        metrics.record(PipelineMetrics.INTERACTION_BATCH, events.size());
+        Map<Long, List<InteractionEvent>> byUser = new LinkedHashMap<>();
+        for (InteractionEvent event : events) {
+            byUser.computeIfAbsent(event.userId(), id -> new ArrayList<>()).add(event);
+        }
+
+        for (Map.Entry<Long, List<InteractionEvent>> entry : byUser.entrySet()) {
+            try {
+                write(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                if (entry.getValue().size() == 1) {
+                    log.error("Dropped interaction for user {}: {}", entry.getKey(), e.getMessage());
+                } else {
+                    // The batch rolled back as a whole; apply the events one by one so only the bad one is lost
+                    log.warn("Batch of {} interaction(s) for user {} failed, retrying one by one: {}",
+                            entry.getValue().size(), entry.getKey(), e.getMessage());
+                    writeEach(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    private void writeEach(Long userId, List<InteractionEvent> events) {
+        for (InteractionEvent event : events) {
+            try {
+                write(userId, List.of(event));
+            } catch (Exception e) {
+                log.error("Dropped {} on video {} for user {}: {}", event.action(), event.videoId(), userId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One user's events in one transaction, timed including the commit.
+     */
+    private void write(Long userId, List<InteractionEvent> events) {
+        try {
+            metrics.time(PipelineMetrics.INTERACTION_WRITE, () -> {
+                recommendationService.recordInteractions(userId, events);
+                return null;
+            });
+            metrics.count(PipelineMetrics.INTERACTION_EVENTS, events.size(), "outcome", "success");
+        } catch (RuntimeException e) {
+            metrics.count(PipelineMetrics.INTERACTION_EVENTS, events.size(), "outcome", "error");
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.event.VideoEmbeddedEvent;
+import com.example.youtube_recommender.index.BloomFilter;
+import com.example.youtube_recommender.repository.VideoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers "which of these video IDs are new?" for ingestion.
+ *
+ * Known IDs are tracked in an optional Bloom filter, warmed from the table at startup and kept up to
+ * date as videos are saved. IDs the filter has never seen are new without asking the database;
+ * only possible matches (true hits plus the rare false positive) are confirmed with one bulk query.
+ * When the filter is disabled or still warming, every ID goes through that bulk query.
+ */
+@Service
+public class KnownVideoIdFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(KnownVideoIdFilter.class);
+
+    private final VideoRepository videoRepository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final BloomFilter bloomFilter;
+    private final AtomicLong inserted = new AtomicLong();
+    private volatile boolean ready = false;
+
+    public KnownVideoIdFilter(VideoRepository videoRepository,
+                              @Value("${recommender.ingestion.bloom-filter.enabled:true}") boolean enabled,
+                              @Value("${recommender.ingestion.bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+                              @Value("${recommender.ingestion.bloom-filter.fpp:0.01}") double fpp) {
+        this.videoRepository = videoRepository;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.bloomFilter = enabled ? new BloomFilter(expectedInsertions, fpp) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        if (!enabled) return;
+        Thread.ofVirtual().name("video-id-filter-loader").start(this::warm);
+    }
+
+    private void warm() {
+        long t0 = System.nanoTime();
+        String lastId = "";
+        try {
+            while (true) {
+                List<String> page = videoRepository.findIdsAfter(lastId, PageRequest.of(0, 10_000));
+                if (page.isEmpty()) break;
+                for (String id : page) add(id);
+                lastId = page.getLast();
+            }
+            ready = true;
+            log.info("Known-video filter ready: {} IDs in {}ms", inserted.get(), (System.nanoTime() - t0) / 1_000_000L);
+        } catch (Exception e) {
+            log.error("Failed to warm known-video filter; dedupe stays on the database: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoEmbedded(VideoEmbeddedEvent event) {
+        if (enabled) add(event.videoId());
+    }
+
+    private void add(String videoId) {
+        bloomFilter.put(videoId);
+        if (inserted.incrementAndGet() == expectedInsertions + 1) {
+            log.warn("Known-video filter is past its expected {} IDs; false positives (extra DB checks) will rise.",
+                    expectedInsertions);
+        }
+    }
+
+    /**
+     * Returns the IDs that are not stored yet, in their original order and without duplicates.
+     */
+    public List<String> filterNew(Collection<String> videoIds) {
+        Set<String> candidates = new LinkedHashSet<>(videoIds);
+        if (candidates.isEmpty()) return new ArrayList<>();
+
+        Set<String> toCheck = candidates;
+        if (enabled && ready) {
+            toCheck = new LinkedHashSet<>();
+            for (String id : candidates) {
+                if (bloomFilter.mightContain(id)) toCheck.add(id);
+            }
+        }
+
+        Set<String> existing = toCheck.isEmpty() ? Set.of() : videoRepository.findExistingIds(toCheck);
+        List<String> fresh = new ArrayList<>(candidates.size());
+        for (String id : candidates) {
+            if (!existing.contains(id)) fresh.add(id);
+        }
+        return fresh;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.event.VideoEmbeddedEvent;
+import com.example.youtube_recommender.index.Bm25Index;
+import com.example.youtube_recommender.index.Neighbor;
+import com.example.youtube_recommender.repository.LexicalDocument;
+import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Keyword search over video titles, tags and summaries with an in-memory BM25 index.
+ *
+ * Complements the vector search for exact terms (channel names, library versions, tags) that
+ * embeddings tend to blur. Documents use the vector index's ordinals, so the same per-user
+ * exclusion bitmaps apply. Built in the background at startup; new videos are added as soon as
+ * their ingestion transaction commits. Until the index is ready, searches return nothing.
+ */
+@Service
+public class LexicalIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(LexicalIndexService.class);
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float TAGS_WEIGHT = 2f;
+    private static final float SUMMARY_WEIGHT = 1f;
+
+    private final VideoEmbeddingRepository videoEmbeddingRepository;
+    private final VectorIndexService vectorIndexService;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final int loadBatchSize;
+    private final Bm25Index index;
+    private volatile boolean ready = false;
+
+    public LexicalIndexService(VideoEmbeddingRepository videoEmbeddingRepository,
+                               VectorIndexService vectorIndexService,
+                               PipelineMetrics metrics,
+                               @Value("${recommender.lexical.enabled:true}") boolean enabled,
+                               @Value("${recommender.index.load-batch-size:2000}") int loadBatchSize,
+                               @Value("${recommender.lexical.k1:1.2}") float k1,
+                               @Value("${recommender.lexical.b:0.75}") float b) {
+        this.videoEmbeddingRepository = videoEmbeddingRepository;
+        this.vectorIndexService = vectorIndexService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.loadBatchSize = loadBatchSize;
+        this.index = new Bm25Index(k1, b);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("Lexical index disabled; retrieval is vector-only.");
+            return;
+        }
+        Thread.ofVirtual().name("lexical-index-loader").start(this::loadAll);
+    }
+
+    private void loadAll() {
+        long t0 = System.nanoTime();
+        long lastId = 0;
+        try {
+            while (true) {
+                List<LexicalDocument> page = videoEmbeddingRepository.findDocumentsAfter(lastId, PageRequest.of(0, loadBatchSize));
+                if (page.isEmpty()) break;
+                for (LexicalDocument doc : page) {
+                    add(doc.videoId(), doc.title(), doc.tags(), doc.summary());
+                    lastId = doc.embeddingId();
+                }
+            }
+            ready = true;
+            log.info("Lexical index ready: {} documents, {} terms in {}ms",
+                    index.size(), index.terms(), (System.nanoTime() - t0) / 1_000_000L);
+        } catch (Exception e) {
+            log.error("Failed to build lexical index; retrieval stays vector-only: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Indexes freshly ingested videos once their transaction has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoEmbedded(VideoEmbeddedEvent event) {
+        if (!enabled) return;
+        add(event.videoId(), event.title(), event.tags(), event.summary());
+    }
+
+    private void add(String videoId, String title, String tags, String summary) {
+        index.add(vectorIndexService.ordinalFor(videoId), List.of(
+                new Bm25Index.Field(title, TITLE_WEIGHT),
+                new Bm25Index.Field(tags, TAGS_WEIGHT),
+                new Bm25Index.Field(summary, SUMMARY_WEIGHT)));
+    }
+
+    /**
+     * Video IDs of the {@code limit} best keyword matches, best first, never returning the
+     * ordinals in {@code excluded}. Empty while the index is disabled or still loading.
+     */
+    public List<String> search(String query, int limit, RoaringBitmap excluded) {
+        if (!enabled || !ready) return List.of();
+        IntPredicate accept = excluded != null && !excluded.isEmpty() ? ordinal -> !excluded.contains(ordinal) : null;
+        List<Neighbor> hits = metrics.time(PipelineMetrics.LEXICAL_SEARCH, () -> index.search(query, limit, accept));
+
+        List<String> videoIds = new ArrayList<>(hits.size());
+        for (Neighbor hit : hits) {
+            String videoId = vectorIndexService.videoIdFor(hit.ordinal());
+            if (videoId != null) videoIds.add(videoId);
+        }
+        return videoIds;
+    }
+
+    /**
+     * True once the index is loaded and enabled, i.e. when {@link #search} can return hits.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("documents", index.size());
+        stats.put("terms", index.terms());
+        return stats;
+    }
+}
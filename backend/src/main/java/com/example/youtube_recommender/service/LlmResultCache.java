@@ -0,0 +1,172 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.enums.LlmCacheKind;
+import com.example.youtube_recommender.model.LlmCacheEntry;
+import com.example.youtube_recommender.repository.LlmCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Persistent cache of model outputs used by ingestion, in the llm_cache table.
+ *
+ * Keys are SHA-256(kind, model name, input text), so an entry is reused only for the exact same
+ * input on the same model: re-running a topic after a failure, or videos sharing a boilerplate
+ * description, skip the LLM. Changing the configured model starts a fresh set of keys.
+ */
+@Service
+public class LlmResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmResultCache.class);
+
+    private final LlmCacheRepository repository;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final String chatModelName;
+    private final String embeddingModelName;
+
+    private final Map<LlmCacheKind, AtomicLong> hits = new HashMap<>();
+    private final Map<LlmCacheKind, AtomicLong> misses = new HashMap<>();
+
+    public LlmResultCache(LlmCacheRepository repository,
+                          PipelineMetrics metrics,
+                          @Value("${recommender.llm-cache.enabled:true}") boolean enabled,
+                          @Value("${recommender.llm-cache.chat-model:${spring.ai.ollama.chat.options.model:default}}") String chatModelName,
+                          @Value("${recommender.llm-cache.embedding-model:${spring.ai.ollama.embedding.options.model:default}}") String embeddingModelName) {
+        this.repository = repository;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.chatModelName = chatModelName;
+        this.embeddingModelName = embeddingModelName;
+
+        for (LlmCacheKind kind : LlmCacheKind.values()) {
+            AtomicLong hitCount = new AtomicLong();
+            AtomicLong missCount = new AtomicLong();
+            hits.put(kind, hitCount);
+            misses.put(kind, missCount);
+            metrics.gauge(PipelineMetrics.LLM_CACHE_HIT_RATIO, hitCount,
+                    h -> ratio(h.get(), missCount.get()), "kind", kind.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Returns the cached summary for this prompt, or generates, stores and returns it.
+     */
+    public String summary(String prompt, Supplier<String> generate) {
+        if (!enabled) return generate.get();
+        String key = key(LlmCacheKind.SUMMARY, chatModelName, prompt);
+        LlmCacheEntry cached = repository.findById(key).orElse(null);
+        if (cached != null && cached.getTextValue() != null) {
+            recordLookup(LlmCacheKind.SUMMARY, 1, 0);
+            return cached.getTextValue();
+        }
+        recordLookup(LlmCacheKind.SUMMARY, 0, 1);
+
+        String summary = generate.get();
+        store(LlmCacheEntry.builder()
+                .cacheKey(key)
+                .kind(LlmCacheKind.SUMMARY)
+                .modelName(chatModelName)
+                .textValue(summary)
+                .build());
+        return summary;
+    }
+
+    /**
+     * Cached embeddings for the given texts, in one query. Texts without an entry are absent from the map.
+     */
+    public Map<String, float[]> embeddings(Collection<String> texts) {
+        Map<String, float[]> found = new HashMap<>();
+        if (!enabled || texts.isEmpty()) return found;
+
+        Map<String, String> textByKey = new LinkedHashMap<>();
+        for (String text : texts) textByKey.put(key(LlmCacheKind.EMBEDDING, embeddingModelName, text), text);
+        for (LlmCacheEntry entry : repository.findAllById(textByKey.keySet())) {
+            if (entry.getVectorValue() != null) found.put(textByKey.get(entry.getCacheKey()), entry.getVectorValue());
+        }
+        recordLookup(LlmCacheKind.EMBEDDING, found.size(), texts.size() - found.size());
+        return found;
+    }
+
+    public void putEmbedding(String text, float[] vector) {
+        if (!enabled || vector == null || vector.length == 0) return;
+        store(LlmCacheEntry.builder()
+                .cacheKey(key(LlmCacheKind.EMBEDDING, embeddingModelName, text))
+                .kind(LlmCacheKind.EMBEDDING)
+                .modelName(embeddingModelName)
+                .vectorValue(vector)
+                .build());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("chatModel", chatModelName);
+        stats.put("embeddingModel", embeddingModelName);
+        for (LlmCacheKind kind : LlmCacheKind.values()) {
+            long h = hits.get(kind).get();
+            long m = misses.get(kind).get();
+            stats.put(kind.name().toLowerCase(Locale.ROOT), Map.of("hits", h, "misses", m, "hitRate", ratio(h, m)));
+        }
+        return stats;
+    }
+
+    // ---- Helpers ------------------------------------------------------------------------------
+
+    private void store(LlmCacheEntry entry) {
+        try {
+            repository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            // Another run stored the same key first; its value is just as good.
+            log.debug("LLM cache entry {} already stored", entry.getCacheKey());
+        } catch (Exception e) {
+            // The cache is an optimization; never fail ingestion because of it.
+            log.warn("Failed to store LLM cache entry: {}", e.getMessage());
+        }
+    }
+
+    private void recordLookup(LlmCacheKind kind, long hitCount, long missCount) {
+        String tag = kind.name().toLowerCase(Locale.ROOT);
+        if (hitCount > 0) {
+            hits.get(kind).addAndGet(hitCount);
+            metrics.count(PipelineMetrics.LLM_CACHE_REQUESTS, hitCount, "kind", tag, "result", "hit");
+        }
+        if (missCount > 0) {
+            misses.get(kind).addAndGet(missCount);
+            metrics.count(PipelineMetrics.LLM_CACHE_REQUESTS, missCount, "kind", tag, "result", "miss");
+        }
+    }
+
+    private static double ratio(long hitCount, long missCount) {
+        long total = hitCount + missCount;
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    static String key(LlmCacheKind kind, String model, String input) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(kind.name().getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(model.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(input.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.youtube_recommender.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters for the recommend and ingest pipelines, scraped at /actuator/prometheus.
+ *
+ * Timers and summaries publish p50/p95/p99 plus a percentile histogram, so latency can be
+ * broken down per stage (Ollama vs Postgres vs the YouTube API) and aggregated across nodes.
+ */
+@Component
+public class PipelineMetrics {
+
+    // Recommend path
+    public static final String QUERY_EMBED = "recommender.query.embed";
+    public static final String VECTOR_SEARCH = "recommender.vector.search";
+    public static final String LEXICAL_SEARCH = "recommender.lexical.search";
+    public static final String PROMPT_BUILD = "recommender.prompt.build";
+    public static final String LLM_GENERATE = "recommender.llm.generate";
+    public static final String LLM_FIRST_TOKEN = "recommender.llm.first-token";
+    public static final String RANKING = "recommender.ranking.rerank";
+    public static final String RANKING_STAGE = "recommender.ranking.stage";
+
+    public static final String FEED_BUILD = "recommender.feed.build";
+    public static final String FEED_USERS = "recommender.feed.users";
+
+    // Interactions
+    public static final String INTERACTION_WRITE = "recommender.interactions.write";
+    public static final String INTERACTION_EVENTS = "recommender.interactions.events";
+    public static final String INTERACTION_BATCH = "recommender.interactions.batch.size";
+    public static final String INTERACTION_REJECTED = "recommender.interactions.rejected";
+    public static final String INTERACTION_QUEUE = "recommender.interactions.queue.depth";
+    public static final String PREFERENCE_WRITES = "recommender.preferences.writes";
+    public static final String PREFERENCE_USERS = "recommender.preferences.users";
+
+    // External calls and ingestion
+    public static final String YOUTUBE_API = "recommender.youtube.api";
+    public static final String YOUTUBE_CACHE = "recommender.youtube.cache";
+    public static final String EMBEDDINGS_MODEL = "recommender.embeddings.model";
+    public static final String INGEST_STAGE = "recommender.ingest.stage";
+    public static final String INGEST_FAILURES = "recommender.ingest.failures";
+    public static final String INGEST_VIDEOS = "recommender.ingest.videos";
+    public static final String INGEST_EMBED_BATCH = "recommender.ingest.embed.batch.size";
+    public static final String LLM_CACHE_REQUESTS = "recommender.llm-cache.requests";
+    public static final String LLM_CACHE_HIT_RATIO = "recommender.llm-cache.hit-ratio";
+
+    // Cross-node change feed
+    public static final String CHANGE_FEED = "recommender.change-feed.notifications";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Times {@code call}, tagged with outcome=success or outcome=error.
+     */
+    public <T> T time(String name, Supplier<T> call, String... tags) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(timer(name, withOutcome(tags, outcome)));
+        }
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void count(String name, long amount, String... tags) {
+        registry.counter(name, tags).increment(amount);
+    }
+
+    public void record(String name, double amount, String... tags) {
+        DistributionSummary.builder(name)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(amount);
+    }
+
+    public <T> void gauge(String name, T stateObject, ToDoubleFunction<T> value, String... tags) {
+        registry.gauge(name, Tags.of(tags), stateObject, value);
+    }
+
+    /**
+     * Exposes hit/miss/eviction/load counters of a Caffeine cache (built with recordStats()).
+     */
+    public void monitor(Cache<?, ?> cache, String cacheName) {
+        CaffeineCacheMetrics.monitor(registry, cache, cacheName);
+    }
+
+    private static String[] withOutcome(String[] tags, String outcome) {
+        String[] all = Arrays.copyOf(tags, tags.length + 2);
+        all[tags.length] = "outcome";
+        all[tags.length + 1] = outcome;
+        return all;
+    }
+}
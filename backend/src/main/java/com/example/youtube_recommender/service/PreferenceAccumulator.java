@@ -0,0 +1,237 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.event.PreferencePersistedEvent;
+import com.example.youtube_recommender.index.VectorMath;
+import com.example.youtube_recommender.model.User;
+import com.example.youtube_recommender.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory owner of users' preference vectors, so concurrent interactions never lose an update.
+ *
+ * Each user's state is an immutable {@link State} behind an AtomicReference; interactions fold their
+ * EMA steps in with compare-and-set, so parallel clicks neither block each other nor overwrite each
+ * other. The state keeps the pending steps as one affine transform of the last persisted vector
+ * (p' = decay * base + delta): n steps of p' = a * p + (1 - a) * w * v compose into a single
+ * (decay, delta) pair.
+ *
+ * Dirty vectors are written to {@code users} in the background with an optimistic version check
+ * (preference_version). If another node wrote first, the pending transform is re-applied on top of
+ * its vector instead of overwriting it, then written again on the next flush.
+ */
+@Service
+public class PreferenceAccumulator {
+
+    private static final Logger log = LoggerFactory.getLogger(PreferenceAccumulator.class);
+
+    /**
+     * One interaction's contribution: the video's embedding and the action's weight.
+     */
+    public record Step(float[] video, float weight) {}
+
+    /**
+     * value = decay * base + delta; {@code delta == null} means no pending steps (decay is 1).
+     * A decay of 0 means the first step started from no vector at all, so the base is ignored.
+     */
+    private record State(float[] base, long version, float decay, float[] delta, long touchedAt) {
+
+        static final State EVICTED = new State(null, -1, 1f, null, 0);
+
+        static State of(float[] base, long version) {
+            return new State(base, version, 1f, null, System.nanoTime());
+        }
+
+        boolean dirty() {
+            return delta != null;
+        }
+
+        float[] value() {
+            if (delta == null) return base;
+            if (base == null || decay == 0f) return delta;
+            return VectorMath.combine(base, decay, delta, 1f);
+        }
+
+        State apply(List<Step> steps) {
+            float[] current = value();
+            float nextDecay = decay;
+            float[] nextDelta = delta;
+            for (Step step : steps) {
+                if (current == null) {
+                    nextDecay = 0f;
+                    nextDelta = RecommendationService.updatePreference(null, step.video(), step.weight());
+                } else {
+                    float scale = (1 - RecommendationService.ALPHA) * step.weight();
+                    nextDecay *= RecommendationService.ALPHA;
+                    nextDelta = nextDelta == null
+                            ? VectorMath.scale(step.video(), scale)
+                            : VectorMath.combine(nextDelta, RecommendationService.ALPHA, step.video(), scale);
+                }
+                current = nextDelta;
+            }
+            return new State(base, version, nextDecay, nextDelta, System.nanoTime());
+        }
+
+        /**
+         * This state's pending steps applied after {@code earlier}'s, on earlier's base.
+         */
+        State after(State earlier) {
+            if (!earlier.dirty()) return new State(earlier.base, earlier.version, decay, delta, touchedAt);
+            if (delta == null) return new State(earlier.base, earlier.version, earlier.decay, earlier.delta, touchedAt);
+            float[] combined = decay == 0f ? delta : VectorMath.combine(earlier.delta, decay, delta, 1f);
+            return new State(earlier.base, earlier.version, earlier.decay * decay, combined, touchedAt);
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final PipelineMetrics metrics;
+    private final long idleNanos;
+    private final Map<Long, AtomicReference<State>> states = new ConcurrentHashMap<>();
+
+    public PreferenceAccumulator(UserRepository userRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 PipelineMetrics metrics,
+                                 @Value("${recommender.preferences.idle-ttl:PT30M}") Duration idleTtl) {
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+        this.idleNanos = idleTtl.toNanos();
+        metrics.gauge(PipelineMetrics.PREFERENCE_USERS, states, Map::size);
+    }
+
+    /**
+     * Folds the steps into the user's vector and returns the result. Never blocks; the first use
+     * for a user starts from the vector loaded with {@code user}.
+     */
+    public float[] apply(User user, List<Step> steps) {
+        return update(user, state -> state.apply(steps)).value();
+    }
+
+    /**
+     * The user's current vector, including steps not persisted yet.
+     */
+    public float[] current(User user) {
+        AtomicReference<State> ref = states.get(user.getUserId());
+        State state = ref == null ? null : ref.get();
+        return state == null || state == State.EVICTED ? user.getPreferenceEmbedding() : state.value();
+    }
+
+    private State update(User user, UnaryOperator<State> change) {
+        while (true) {
+            AtomicReference<State> ref = states.computeIfAbsent(user.getUserId(),
+                    id -> new AtomicReference<>(State.of(user.getPreferenceEmbedding(), user.getPreferenceVersion())));
+            State current = ref.get();
+            if (current == State.EVICTED) {
+                // Lost a race with eviction: start over from a fresh entry
+                states.remove(user.getUserId(), ref);
+                continue;
+            }
+            State next = change.apply(current);
+            if (ref.compareAndSet(current, next)) return next;
+        }
+    }
+
+    // ---- Persistence --------------------------------------------------------------------------
+
+    /**
+     * Writes every dirty vector and drops users idle for longer than the idle TTL.
+     * Synchronized with {@link #refresh}; interactions keep updating meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${recommender.preferences.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        long now = System.nanoTime();
+        states.forEach((userId, ref) -> {
+            State state = ref.get();
+            if (state.dirty()) {
+                write(userId, ref);
+            } else if (state != State.EVICTED && now - state.touchedAt() > idleNanos && ref.compareAndSet(state, State.EVICTED)) {
+                states.remove(userId, ref);
+            }
+        });
+    }
+
+    private void write(Long userId, AtomicReference<State> ref) {
+        // Move the pending steps into the base; steps arriving during the write stay pending on top of it
+        State cut;
+        float[] value;
+        while (true) {
+            cut = ref.get();
+            value = cut.value();
+            if (ref.compareAndSet(cut, new State(value, cut.version(), 1f, null, cut.touchedAt()))) break;
+        }
+        State written = cut;
+        float[] vector = value;
+        long version = written.version();
+
+        try {
+            Integer updated = transactionTemplate.execute(status -> {
+                int rows = userRepository.updatePreference(userId, vector, version);
+                if (rows == 1) eventPublisher.publishEvent(new PreferencePersistedEvent(userId, version + 1));
+                return rows;
+            });
+            if (updated != null && updated == 1) {
+                ref.updateAndGet(state -> new State(state.base(), version + 1, state.decay(), state.delta(), state.touchedAt()));
+                metrics.count(PipelineMetrics.PREFERENCE_WRITES, 1, "outcome", "written");
+                return;
+            }
+
+            // Another writer won: replay everything since our last persisted version on top of theirs
+            metrics.count(PipelineMetrics.PREFERENCE_WRITES, 1, "outcome", "conflict");
+            Optional<User> latest = userRepository.findById(userId);
+            if (latest.isEmpty()) {
+                states.remove(userId, ref);
+                return;
+            }
+            State theirs = State.of(latest.get().getPreferenceEmbedding(), latest.get().getPreferenceVersion());
+            State rebased = new State(theirs.base(), theirs.version(), written.decay(), written.delta(), written.touchedAt());
+            ref.updateAndGet(state -> state.after(rebased));
+        } catch (RuntimeException e) {
+            metrics.count(PipelineMetrics.PREFERENCE_WRITES, 1, "outcome", "error");
+            log.warn("Failed to persist preference vector of user {}; retrying on the next flush: {}", userId, e.getMessage());
+            ref.updateAndGet(state -> state.after(written));
+        }
+    }
+
+    /**
+     * Picks up a vector another node has persisted: pending local steps are re-applied on top of it.
+     * Returns the user's current vector, or null if the user no longer exists.
+     */
+    public synchronized float[] refresh(Long userId) {
+        Optional<User> latest = userRepository.findById(userId);
+        AtomicReference<State> ref = states.get(userId);
+        if (latest.isEmpty()) {
+            if (ref != null) states.remove(userId, ref);
+            return null;
+        }
+        User user = latest.get();
+        if (ref == null) return user.getPreferenceEmbedding();
+        State state = ref.updateAndGet(current -> current == State.EVICTED || current.version() >= user.getPreferenceVersion()
+                ? current
+                : current.after(State.of(user.getPreferenceEmbedding(), user.getPreferenceVersion())));
+        return state == State.EVICTED ? user.getPreferenceEmbedding() : state.value();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.youtube_recommender.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Caches query embeddings so repeated searches ("learn java", "spring boot tutorial")
+ * skip the Ollama round trip.
+ *
+ * Keys are normalized query text (trimmed, lower-cased, whitespace collapsed).
+ * Entries are evicted by size (LRU-ish, W-TinyLFU) and by age since they were written.
+ *
+ * The cache is asynchronous: a miss stores a future and the Ollama call runs on a virtual thread,
+ * outside Caffeine's map lock, so a slow call never blocks lookups of other queries. Concurrent
+ * misses for the same query still share one call.
+ */
+@Service
+public class QueryEmbeddingCache {
+
+    private final EmbeddingModel embeddingModel;
+    private final PipelineMetrics metrics;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<String, float[]> cache;
+
+    public QueryEmbeddingCache(EmbeddingModel embeddingModel,
+                               PipelineMetrics metrics,
+                               @Value("${recommender.query-cache.max-size:10000}") long maxSize,
+                               @Value("${recommender.query-cache.ttl:PT1H}") Duration ttl) {
+        this.embeddingModel = embeddingModel;
+        this.metrics = metrics;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .executor(executor)
+                .recordStats()
+                .buildAsync();
+        metrics.monitor(cache.synchronous(), "query-embeddings");
+    }
+
+    /**
+     * Returns the embedding for the query, calling the model only on a cache miss.
+     */
+    public float[] embed(String query) {
+        // Embed the normalized text so the cached vector doesn't depend on which spelling came first.
+        // Only misses reach the model, so the timer measures real Ollama round trips.
+        // A failed call is not cached.
+        try {
+            return cache.get(normalize(query), key -> metrics.time(PipelineMetrics.QUERY_EMBED, () -> embeddingModel.embed(key)))
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats s = cache.synchronous().stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.synchronous().estimatedSize());
+        stats.put("hits", s.hitCount());
+        stats.put("misses", s.missCount());
+        stats.put("evictions", s.evictionCount());
+        stats.put("hitRate", s.hitRate());
+        stats.put("avgLoadMillis", s.averageLoadPenalty() / 1_000_000.0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Normalizes free-text queries so trivially different spellings share a cache entry.
+     */
+    public static String normalize(String query) {
+        if (query == null) return "";
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
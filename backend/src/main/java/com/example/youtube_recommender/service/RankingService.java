@@ -0,0 +1,166 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.ranking.Candidate;
+import com.example.youtube_recommender.ranking.RankerStage;
+import com.example.youtube_recommender.ranking.RankingContext;
+import com.example.youtube_recommender.repository.VideoFeatures;
+import com.example.youtube_recommender.repository.VideoRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Second stage of retrieval: re-scores the first-stage candidates through the {@link RankerStage}
+ * beans and returns the best few.
+ *
+ * A candidate's final score is its first-stage relevance times {@code 1 + adjustment}, where the
+ * stages' summed adjustment is clamped to +/- {@code max-adjustment}. With the default 0.25 a candidate
+ * needs at least 60% of another's relevance (0.75 / 1.25) to overtake it through the stages.
+ *
+ * The whole stage (feature load + ranker chain) has a per-request time budget. It runs on a
+ * virtual thread; if the budget runs out or a stage fails, the request gets the first-stage order
+ * instead, so re-ranking can only make results better, never slower than the budget. The worker is
+ * interrupted on timeout and works on its own copy of the candidates, so a stage that is still
+ * running cannot change the fallback. A JDBC call can't be interrupted, so the feature load reads
+ * only the few columns the stages use to keep it (and its pooled connection) well inside the budget.
+ */
+@Service
+public class RankingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RankingService.class);
+    private final VideoRepository videoRepository;
+    private final List<RankerStage> stages;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final int candidateCount;
+    private final Duration budget;
+    private final double maxAdjustment;
+    private final Comparator<Candidate> bestFirst;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RankingService(VideoRepository videoRepository,
+                          List<RankerStage> stages,
+                          PipelineMetrics metrics,
+                          @Value("${recommender.ranking.enabled:true}") boolean enabled,
+                          @Value("${recommender.ranking.candidates:200}") int candidateCount,
+                          @Value("${recommender.ranking.budget-ms:100}") long budgetMs,
+                          @Value("${recommender.ranking.max-adjustment:0.25}") double maxAdjustment) {
+        this.videoRepository = videoRepository;
+        this.stages = stages;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.candidateCount = Math.max(1, candidateCount);
+        this.budget = Duration.ofMillis(Math.max(1, budgetMs));
+        this.maxAdjustment = Math.clamp(maxAdjustment, 0.0, 0.99);
+        this.bestFirst = Comparator.comparingDouble(this::finalScore).reversed()
+                .thenComparingInt(Candidate::firstStageRank);
+        log.info("Ranking stages: {}", stages.stream().map(RankerStage::name).toList());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * How many candidates the first stage should retrieve.
+     */
+    public int candidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * Returns the video IDs of the best {@code limit} candidates.
+     * {@code candidates} must be in first-stage order.
+     */
+    public List<String> rank(Long userId, String query, List<Candidate> candidates, int limit) {
+        if (!enabled || candidates.isEmpty()) {
+            return firstStage(candidates, limit);
+        }
+
+        Instant now = Instant.now();
+        RankingContext context = new RankingContext(userId, query, now, now.plus(budget));
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        List<Candidate> working = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            working.add(new Candidate(candidate.videoId(), candidate.firstStageRank(), candidate.score()));
+        }
+        Future<List<String>> future = executor.submit(() -> rescore(context, working, limit));
+        try {
+            List<String> ranked = future.get(budget.toMillis(), TimeUnit.MILLISECONDS);
+            outcome = "success";
+            return ranked;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            outcome = "timeout";
+            log.debug("Ranking budget of {}ms exceeded; using first-stage order", budget.toMillis());
+            return firstStage(candidates, limit);
+        } catch (ExecutionException e) {
+            log.warn("Ranking failed; using first-stage order: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return firstStage(candidates, limit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return firstStage(candidates, limit);
+        } finally {
+            sample.stop(metrics.timer(PipelineMetrics.RANKING, "outcome", outcome));
+        }
+    }
+
+    private List<String> rescore(RankingContext context, List<Candidate> candidates, int limit) {
+        // One query for the features every stage reads: a few narrow columns, not the whole video rows
+        Map<String, VideoFeatures> features = videoRepository.findFeaturesByIds(candidates.stream().map(Candidate::videoId).toList()).stream()
+                .collect(Collectors.toMap(VideoFeatures::videoId, Function.identity()));
+        for (Candidate candidate : candidates) {
+            candidate.attach(features.get(candidate.videoId()));
+        }
+
+        for (RankerStage stage : stages) {
+            if (context.expired() || Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Ranking budget exceeded before stage " + stage.name());
+            }
+            metrics.time(PipelineMetrics.RANKING_STAGE, () -> {
+                stage.apply(context, candidates);
+                return null;
+            }, "stage", stage.name());
+        }
+
+        return candidates.stream()
+                .sorted(bestFirst)
+                .limit(limit)
+                .map(Candidate::videoId)
+                .toList();
+    }
+
+    double finalScore(Candidate candidate) {
+        double adjustment = Math.clamp(candidate.adjustment(), -maxAdjustment, maxAdjustment);
+        return Math.max(0, candidate.score()) * (1 + adjustment);
+    }
+
+    private static List<String> firstStage(List<Candidate> candidates, int limit) {
+        return candidates.stream().limit(limit).map(Candidate::videoId).toList();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
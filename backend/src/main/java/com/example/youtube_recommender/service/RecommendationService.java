@@ -1,27 +1,53 @@
 package com.example.youtube_recommender.service;
 
 import com.example.youtube_recommender.controller.RecommendationResponse;
+import com.example.youtube_recommender.controller.StreamingRecommendation;
 import com.example.youtube_recommender.enums.InteractionAction;
 import com.example.youtube_recommender.enums.LikeStatus;
 import com.example.youtube_recommender.enums.WatchStatus;
+import com.example.youtube_recommender.event.ExclusionsChangedEvent;
+import com.example.youtube_recommender.event.InteractionEvent;
+import com.example.youtube_recommender.event.PreferenceUpdatedEvent;
+import com.example.youtube_recommender.index.ScoredVideo;
+import com.example.youtube_recommender.index.VectorMath;
 import com.example.youtube_recommender.model.User;
 import com.example.youtube_recommender.model.UserInteraction;
 import com.example.youtube_recommender.model.Video;
 import com.example.youtube_recommender.model.VideoEmbedding;
+import com.example.youtube_recommender.ranking.Candidate;
+import com.example.youtube_recommender.repository.InteractionView;
 import com.example.youtube_recommender.repository.UserInteractionRepository;
 import com.example.youtube_recommender.repository.UserRepository;
 import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
-import com.example.youtube_recommender.repository.VideoRepository;
+import io.micrometer.core.instrument.Timer;
+import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.SignalType;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,53 +56,134 @@ public class RecommendationService {
     private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
 
     private final UserRepository userRepository;
-    private final VideoRepository videoRepository;
     private final VideoEmbeddingRepository videoEmbeddingRepository;
     private final UserInteractionRepository interactionRepository;
-    private final EmbeddingModel embeddingModel;
+    private final VectorIndexService vectorIndexService;
+    private final LexicalIndexService lexicalIndexService;
+    private final RankingService rankingService;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final UserExclusionService userExclusionService;
+    private final ExplanationCache explanationCache;
+    private final PreferenceAccumulator preferenceAccumulator;
     private final ChatModel chatModel;
+    private final PipelineMetrics metrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int fusionDepth;
+    private final int rrfK;
 
-    private static final float ALPHA = 0.85f;
+    static final float ALPHA = 0.85f;
+    private static final int RESULT_LIMIT = 4;
 
     public RecommendationService(UserRepository userRepository,
-                                 VideoRepository videoRepository,
                                  VideoEmbeddingRepository videoEmbeddingRepository,
                                  UserInteractionRepository interactionRepository,
-                                 EmbeddingModel embeddingModel,
-                                 ChatModel chatModel) {
+                                 VectorIndexService vectorIndexService,
+                                 LexicalIndexService lexicalIndexService,
+                                 RankingService rankingService,
+                                 QueryEmbeddingCache queryEmbeddingCache,
+                                 UserExclusionService userExclusionService,
+                                 ExplanationCache explanationCache,
+                                 PreferenceAccumulator preferenceAccumulator,
+                                 ChatModel chatModel,
+                                 PipelineMetrics metrics,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${recommender.hybrid.depth:10}") int fusionDepth,
+                                 @Value("${recommender.hybrid.rrf-k:60}") int rrfK) {
         this.userRepository = userRepository;
-        this.videoRepository = videoRepository;
         this.videoEmbeddingRepository = videoEmbeddingRepository;
         this.interactionRepository = interactionRepository;
-        this.embeddingModel = embeddingModel;
+        this.vectorIndexService = vectorIndexService;
+        this.lexicalIndexService = lexicalIndexService;
+        this.rankingService = rankingService;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.userExclusionService = userExclusionService;
+        this.explanationCache = explanationCache;
+        this.preferenceAccumulator = preferenceAccumulator;
         this.chatModel = chatModel;
+        this.metrics = metrics;
+        this.eventPublisher = eventPublisher;
+        this.fusionDepth = Math.max(RESULT_LIMIT, fusionDepth);
+        this.rrfK = Math.max(1, rrfK);
     }
 
     /**
-     * Records an interaction by updating the specific state field
-     * corresponding to the action, preserving other states.
+     * Applies a batch of one user's interactions, in order, with one read of the affected rows
+     * and one save of the touched interactions. The preference vector is updated in
+     * {@link PreferenceAccumulator}, which persists it in the background.
+     * Events for videos that don't exist (or have no embedding) are skipped.
      */
     @Transactional
-    public void recordInteraction(Long userId, String videoId, InteractionAction action) {
+    public void recordInteractions(Long userId, List<InteractionEvent> events) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        Video video = videoRepository.findById(videoId)
-                .orElseThrow(() -> new RuntimeException("Video not found"));
-        VideoEmbedding videoEmbedding = videoEmbeddingRepository.findByVideoVideoId(videoId)
-                .orElseThrow(() -> new RuntimeException("Video has no embedding"));
-
-        // 1. Get existing interaction or create default
-        UserInteraction interaction = interactionRepository.findByUserUserIdAndVideoVideoId(userId, videoId)
-                .orElse(UserInteraction.builder()
-                        .user(user)
-                        .video(video)
-                        .likeStatus(LikeStatus.NONE)
-                        .watchStatus(WatchStatus.NOT_WATCHED)
-                        .watchLater(false)
-                        .clicked(false)
-                        .build());
-
-        // 2. Update specific fields based on Action
+
+        Set<String> videoIds = events.stream()
+                .map(InteractionEvent::videoId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, VideoEmbedding> embeddings = videoEmbeddingRepository.findByVideoIds(videoIds).stream()
+                .collect(Collectors.toMap(e -> e.getVideo().getVideoId(), Function.identity()));
+        Map<String, UserInteraction> interactions = interactionRepository.findByUserAndVideoIds(userId, videoIds).stream()
+                .collect(Collectors.toMap(i -> i.getVideo().getVideoId(), Function.identity()));
+
+        Map<String, UserInteraction> touched = new LinkedHashMap<>();
+        Map<String, Boolean> excludedBefore = new LinkedHashMap<>();
+        List<PreferenceAccumulator.Step> steps = new ArrayList<>();
+
+        for (InteractionEvent event : events) {
+            VideoEmbedding videoEmbedding = embeddings.get(event.videoId());
+            if (videoEmbedding == null) {
+                log.warn("Skipping {} by user {}: video {} not found or has no embedding",
+                        event.action(), userId, event.videoId());
+                continue;
+            }
+
+            // 1. Get existing interaction or create default
+            UserInteraction interaction = interactions.computeIfAbsent(event.videoId(), id -> UserInteraction.builder()
+                    .user(user)
+                    .video(videoEmbedding.getVideo())
+                    .likeStatus(LikeStatus.NONE)
+                    .watchStatus(WatchStatus.NOT_WATCHED)
+                    .watchLater(false)
+                    .clicked(false)
+                    .build());
+
+            // 2. Update specific fields based on Action
+            excludedBefore.putIfAbsent(event.videoId(), UserExclusionService.isExcluded(interaction));
+            applyAction(interaction, event.action());
+            touched.put(event.videoId(), interaction);
+
+            log.info("User {} on video {}: Like={}, Watch={}, WL={}, Clicked={}",
+                    userId, event.videoId(), interaction.getLikeStatus(), interaction.getWatchStatus(),
+                    interaction.isWatchLater(), interaction.isClicked());
+
+            // 3. Collect the action's contribution to the preference vector (applied once, below)
+            steps.add(new PreferenceAccumulator.Step(videoEmbedding.getSemanticEmbedding(), getWeight(event.action())));
+        }
+
+        if (touched.isEmpty()) return;
+
+        // Flush first, so a failed write doesn't leave its steps in the preference vector
+        interactionRepository.saveAllAndFlush(touched.values());
+        float[] preference = preferenceAccumulator.apply(user, steps);
+        eventPublisher.publishEvent(new PreferenceUpdatedEvent(userId, preference));
+        publishExclusionChanges(userId, touched, excludedBefore);
+    }
+
+    private void publishExclusionChanges(Long userId, Map<String, UserInteraction> touched, Map<String, Boolean> excludedBefore) {
+        Set<String> excluded = new LinkedHashSet<>();
+        Set<String> released = new LinkedHashSet<>();
+        touched.forEach((videoId, interaction) -> {
+            boolean before = excludedBefore.get(videoId);
+            boolean after = UserExclusionService.isExcluded(interaction);
+            if (after && !before) excluded.add(videoId);
+            if (before && !after) released.add(videoId);
+        });
+        if (!excluded.isEmpty() || !released.isEmpty()) {
+            eventPublisher.publishEvent(new ExclusionsChangedEvent(userId, excluded, released));
+        }
+    }
+
+    private void applyAction(UserInteraction interaction, InteractionAction action) {
         switch (action) {
             case TOGGLE_LIKE:
                 // If already liked, remove like. Else set like (overwriting dislike).
@@ -114,53 +221,201 @@ public class RecommendationService {
                 interaction.setClicked(true);
                 break;
         }
-
-        interactionRepository.save(interaction);
-
-        log.info("User {} on video {}: Like={}, Watch={}, WL={}, Clicked={}",
-                userId, videoId, interaction.getLikeStatus(), interaction.getWatchStatus(),
-                interaction.isWatchLater(), interaction.isClicked());
-
-        // 3. Update User Preferences (Vector) based on the specific action weight
-        updateUserPreference(user, videoEmbedding.getSemanticEmbedding(), getWeight(action));
     }
 
     @Transactional
     public void deleteInteraction(Long userId, String videoId) {
         interactionRepository.deleteByUserUserIdAndVideoVideoId(userId, videoId);
+        eventPublisher.publishEvent(new ExclusionsChangedEvent(userId, Set.of(), Set.of(videoId)));
         log.info("Deleted interaction history for user {} on video {}", userId, videoId);
     }
 
-    public List<UserInteraction> getUserHistory(Long userId, int limit) {
-        // We only want to show interactions that have some meaningful activity
-        // i.e., at least clicked, watched, liked, or watch later.
-        // For now, we return everything sorted by date.
-        return interactionRepository.findHistory(userId, PageRequest.of(0, limit));
+    /**
+     * One page of the user's history, newest first. Pass the previous page's {@code nextCursor}
+     * to continue; the cursor is the (lastModified, interactionId) of the last row, so pages stay
+     * cheap and stable however deep the user scrolls.
+     */
+    public Map<String, Object> getUserHistory(Long userId, String cursor, int limit) {
+        return interactionPage(cursor, limit,
+                page -> interactionRepository.findHistory(userId, page),
+                (after, page) -> interactionRepository.findHistoryAfter(userId, after.lastModified(), after.interactionId(), page));
     }
 
-    public List<UserInteraction> getUserWatchLaterList(Long userId) {
-        return interactionRepository.findWatchLater(userId);
+    public Map<String, Object> getUserWatchLaterList(Long userId, String cursor, int limit) {
+        return interactionPage(cursor, limit,
+                page -> interactionRepository.findWatchLater(userId, page),
+                (after, page) -> interactionRepository.findWatchLaterAfter(userId, after.lastModified(), after.interactionId(), page));
+    }
+
+    // Cursor helpers are package-private for tests
+    record InteractionCursor(LocalDateTime lastModified, Long interactionId) {}
+
+    static Map<String, Object> interactionPage(String cursor, int limit,
+                                                       Function<Pageable, List<InteractionView>> first,
+                                                       BiFunction<InteractionCursor, Pageable, List<InteractionView>> after) {
+        // One extra row tells us whether there is a next page
+        Pageable page = Pageable.ofSize(limit + 1);
+        List<InteractionView> rows = (cursor == null || cursor.isBlank())
+                ? first.apply(page)
+                : after.apply(decodeCursor(cursor), page);
+
+        boolean hasMore = rows.size() > limit;
+        List<InteractionView> items = hasMore ? rows.subList(0, limit) : rows;
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", items);
+        response.put("hasMore", hasMore);
+        response.put("nextCursor", hasMore ? encodeCursor(items.get(items.size() - 1)) : null);
+        return response;
+    }
+
+    static String encodeCursor(InteractionView last) {
+        String raw = last.lastModified() + "|" + last.interactionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static InteractionCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new InteractionCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
     }
 
     // --- Recommendation Logic ---
     public RecommendationResponse getRecommendations(Long userId, String userQuery) {
+        List<VideoEmbedding> selected = retrieve(userId, userQuery);
+
+        if (selected.isEmpty()) return new RecommendationResponse("No videos found.", new ArrayList<>());
+
+        List<Video> videos = selected.stream().map(VideoEmbedding::getVideo).toList();
+        String explanation = explanationCache.get(userQuery, videoIds(videos), () -> {
+            String prompt = buildPrompt(userQuery, selected);
+            return metrics.time(PipelineMetrics.LLM_GENERATE, () -> chatModel.call(prompt), "mode", "call");
+        });
+        return new RecommendationResponse(explanation, videos);
+    }
+
+    /**
+     * Same as {@link #getRecommendations} but returns the videos right away and the explanation
+     * as a stream of tokens, so the caller can show results before the LLM has finished.
+     */
+    public StreamingRecommendation streamRecommendations(Long userId, String userQuery) {
+        List<VideoEmbedding> selected = retrieve(userId, userQuery);
+
+        if (selected.isEmpty()) return new StreamingRecommendation(new ArrayList<>(), Flux.just("No videos found."));
+
+        List<Video> videos = selected.stream().map(VideoEmbedding::getVideo).toList();
+        Flux<String> explanation = explanationCache.stream(userQuery, videoIds(videos),
+                () -> timedStream(chatModel.stream(buildPrompt(userQuery, selected))));
+        return new StreamingRecommendation(videos, explanation);
+    }
+
+    private static List<String> videoIds(List<Video> videos) {
+        return videos.stream().map(Video::getVideoId).toList();
+    }
+
+    /**
+     * Records time to first token and time to the end of the stream (or error/cancel).
+     */
+    private Flux<String> timedStream(Flux<String> tokens) {
+        return Flux.defer(() -> {
+            Timer.Sample total = metrics.start();
+            Timer.Sample firstToken = metrics.start();
+            AtomicBoolean seenFirst = new AtomicBoolean();
+            return tokens
+                    .doOnNext(token -> {
+                        if (seenFirst.compareAndSet(false, true)) {
+                            firstToken.stop(metrics.timer(PipelineMetrics.LLM_FIRST_TOKEN));
+                        }
+                    })
+                    .doFinally(signal -> total.stop(metrics.timer(PipelineMetrics.LLM_GENERATE,
+                            "mode", "stream", "outcome", signal == SignalType.ON_COMPLETE ? "success" : signal.name().toLowerCase(Locale.ROOT))));
+        });
+    }
+
+    /**
+     * Two-stage retrieval:
+     * 1. Candidates: vector search with the query (blended with the user's preference vector when
+     *    there is one), fused with a BM25 keyword search on the raw query via reciprocal rank fusion.
+     *    Only video IDs are fetched here. The fused order is the fallback order; each candidate's
+     *    relevance is its cosine similarity to the search vector.
+     * 2. Ranking: {@link RankingService} re-scores the candidates with video features and the user's
+     *    interaction state within a time budget; only the winners are loaded.
+     * With neither the keyword index nor re-ranking available this is a plain vector search.
+     */
+    private List<VideoEmbedding> retrieve(Long userId, String userQuery) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
-        float[] queryVector = embeddingModel.embed(userQuery);
-        float[] searchVector = (user.getPreferenceEmbedding() != null)
-                ? combineVectors(queryVector, 0.7f, user.getPreferenceEmbedding(), 0.3f)
+        float[] queryVector = queryEmbeddingCache.embed(userQuery);
+        float[] preference = preferenceAccumulator.current(user);
+        float[] searchVector = (preference != null)
+                ? combineVectors(queryVector, 0.7f, preference, 0.3f)
                 : queryVector;
 
-        List<VideoEmbedding> selected = videoEmbeddingRepository.findSimilarByVector(searchVector, 4);
+        // Skip videos the user has already watched in full or disliked
+        RoaringBitmap excluded = userExclusionService.exclusionsFor(userId);
+        boolean hybrid = lexicalIndexService.isReady();
+        if (!hybrid && !rankingService.isEnabled()) {
+            return vectorIndexService.findSimilar(searchVector, RESULT_LIMIT, excluded);
+        }
 
-        if (selected.isEmpty()) return new RecommendationResponse("No videos found.", new ArrayList<>());
+        int depth = rankingService.isEnabled() ? rankingService.candidateCount() : fusionDepth;
+        List<ScoredVideo> similar = vectorIndexService.findSimilarScored(searchVector, depth, excluded);
+        Map<String, Float> relevance = new HashMap<>();
+        for (ScoredVideo hit : similar) relevance.put(hit.videoId(), hit.score());
+        List<List<String>> rankings = new ArrayList<>();
+        rankings.add(similar.stream().map(ScoredVideo::videoId).toList());
+        if (hybrid) {
+            List<String> lexical = lexicalIndexService.search(userQuery, fusionDepth, excluded);
+            rankings.add(lexical);
+            relevance.putAll(vectorIndexService.similarities(searchVector,
+                    lexical.stream().filter(id -> !relevance.containsKey(id)).toList()));
+        }
+        // Keyword-only hits the index can't score missed the vector top-depth, so they are about as
+        // similar as its last hit at best
+        float floor = similar.isEmpty() ? 0f : similar.getLast().score();
+        List<String> fused = reciprocalRankFusion(rankings, rrfK, depth);
+        List<Candidate> candidates = new ArrayList<>(fused.size());
+        for (String videoId : fused) {
+            candidates.add(new Candidate(videoId, candidates.size(), relevance.getOrDefault(videoId, floor)));
+        }
 
-        List<Video> videos = selected.stream().map(VideoEmbedding::getVideo).toList();
+        List<String> selected = rankingService.rank(userId, userQuery, candidates, RESULT_LIMIT);
+        return videoEmbeddingRepository.findByVideoIdsInOrder(selected);
+    }
+
+    /**
+     * Reciprocal rank fusion: each ranking adds 1 / (k + rank) to an item's score (rank from 1).
+     * Needs no score calibration between rankings; items ranked well by several come out on top.
+     * Returns the best {@code limit} items in fused order; ties keep first-seen order.
+     */
+    static List<String> reciprocalRankFusion(List<List<String>> rankings, int k, int limit) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (List<String> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                scores.merge(ranking.get(rank), 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private String buildPrompt(String userQuery, List<VideoEmbedding> selected) {
+        return metrics.time(PipelineMetrics.PROMPT_BUILD, () -> formatPrompt(userQuery, selected));
+    }
 
+    private static String formatPrompt(String userQuery, List<VideoEmbedding> selected) {
         String context = selected.stream()
                 .map(m -> String.format("- Title: %s\n  Summary: %s", m.getVideo().getTitle(), m.getContentSummary()))
                 .collect(Collectors.joining("\n\n"));
 
-        String prompt = String.format("""
+        return String.format("""
                 Expert curator here. User wants: "%s"
                 Selected videos:
                 %s
@@ -168,21 +423,16 @@ public class RecommendationService {
                 Write a short, engaging paragraph explaining WHY these fit. 
                 Use **Bold** for titles. Do NOT list them again.
                 """, userQuery, context);
-
-        return new RecommendationResponse(chatModel.call(prompt), videos);
     }
 
     // --- Helpers ---
-    private void updateUserPreference(User user, float[] videoVector, float weight) {
-        float[] currentPref = user.getPreferenceEmbedding();
+    // Package-private for benchmarks
+    static float[] updatePreference(float[] currentPref, float[] videoVector, float weight) {
         if (currentPref == null) {
-            user.setPreferenceEmbedding(scalarMultiply(videoVector, weight > 0 ? 1.0f : 0.5f));
-        } else {
-            float[] weightedVideo = scalarMultiply(videoVector, weight);
-            float[] newPref = combineVectors(currentPref, ALPHA, weightedVideo, 1 - ALPHA);
-            user.setPreferenceEmbedding(newPref);
+            return scalarMultiply(videoVector, weight > 0 ? 1.0f : 0.5f);
         }
-        userRepository.save(user);
+        float[] weightedVideo = scalarMultiply(videoVector, weight);
+        return combineVectors(currentPref, ALPHA, weightedVideo, 1 - ALPHA);
     }
 
     private float getWeight(InteractionAction action) {
@@ -195,20 +445,11 @@ public class RecommendationService {
         };
     }
 
-    private float[] combineVectors(float[] vecA, float scalarA, float[] vecB, float scalarB) {
-        int size = vecA.length;
-        float[] result = new float[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = (vecA[i] * scalarA) + (vecB[i] * scalarB);
-        }
-        return result;
+    static float[] combineVectors(float[] vecA, float scalarA, float[] vecB, float scalarB) {
+        return VectorMath.combine(vecA, scalarA, vecB, scalarB);
     }
 
-    private float[] scalarMultiply(float[] vec, float scalar) {
-        float[] result = new float[vec.length];
-        for (int i = 0; i < vec.length; i++) {
-            result[i] = vec[i] * scalar;
-        }
-        return result;
+    static float[] scalarMultiply(float[] vec, float scalar) {
+        return VectorMath.scale(vec, scalar);
     }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.index.VectorMath;
+import com.example.youtube_recommender.repository.EmbeddingVector;
+import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduced-dimension copies of the video embeddings for two-phase search: a cheap first pass
+ * over the reduced vectors, then the survivors are re-scored with the full vectors.
+ *
+ * The reduced vector is the first N components of the embedding, re-normalized, which keeps
+ * most of the ranking quality for Matryoshka-trained models (e.g. nomic-embed-text v1.5).
+ * Ingestion stores it next to the full vector; rows saved before the option was enabled (or with
+ * another N) are backfilled in the background at startup. The database search only switches to
+ * two phases once the backfill has finished, so no video is missed.
+ *
+ * The column is a plain {@code vector} (N is configurable), which pgvector cannot index directly, so
+ * after the backfill an HNSW index is built on the expression {@code reduced_embedding::vector(N)},
+ * limited to rows with N dimensions. The first-phase query repeats that expression and predicate so
+ * the planner can use the index; until it exists, the first phase scans the reduced column.
+ */
+@Service
+public class ReducedEmbeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReducedEmbeddingService.class);
+    // pgvector's bounds for hnsw.ef_search; it also caps how many rows an index scan returns
+    private static final int MIN_EF_SEARCH = 40;
+    private static final int MAX_EF_SEARCH = 1000;
+
+    private final VideoEmbeddingRepository videoEmbeddingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int dimensions;
+    private final int rerankFactor;
+    private final int batchSize;
+    private volatile boolean backfilled = false;
+    private volatile boolean indexed = false;
+
+    public ReducedEmbeddingService(VideoEmbeddingRepository videoEmbeddingRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${recommender.embeddings.reduced-dimensions:0}") int dimensions,
+                                   @Value("${recommender.embeddings.reduced-rerank-factor:10}") int rerankFactor,
+                                   @Value("${recommender.index.load-batch-size:2000}") int batchSize) {
+        this.videoEmbeddingRepository = videoEmbeddingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dimensions = Math.max(0, dimensions);
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.batchSize = batchSize;
+    }
+
+    public boolean isEnabled() {
+        return dimensions > 0;
+    }
+
+    /**
+     * True once every stored embedding has a reduced vector of the configured size.
+     */
+    public boolean isReady() {
+        return isEnabled() && backfilled;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * How many first-pass candidates to keep per requested result.
+     */
+    public int rerankFactor() {
+        return rerankFactor;
+    }
+
+    /**
+     * The reduced vector for a full embedding, or null if the option is off.
+     */
+    public float[] reduce(float[] embedding) {
+        if (!isEnabled() || embedding == null) return null;
+        return VectorMath.truncate(embedding, dimensions);
+    }
+
+    /**
+     * First phase of the database search: IDs of the {@code candidates} embeddings closest to the
+     * reduced vector, closest first, skipping {@code excludedIds} (may be null).
+     */
+    public List<Long> findCandidateIds(float[] reduced, int candidates, Collection<String> excludedIds) {
+        boolean excluding = excludedIds != null && !excludedIds.isEmpty();
+        String sql = "SELECT embedding_id FROM video_embeddings"
+                + " WHERE vector_dims(reduced_embedding) = " + dimensions
+                + (excluding ? " AND video_id NOT IN (" + String.join(",", Collections.nCopies(excludedIds.size(), "?")) + ")" : "")
+                + " ORDER BY " + reducedExpression() + " <=> cast(? as vector(" + dimensions + "))"
+                + " LIMIT ?";
+        List<Object> args = new ArrayList<>();
+        if (excluding) args.addAll(excludedIds);
+        args.add(toLiteral(reduced));
+        args.add(candidates);
+
+        return transactionTemplate.execute(status -> {
+            // An HNSW scan returns at most ef_search rows
+            int efSearch = Math.clamp(candidates, MIN_EF_SEARCH, MAX_EF_SEARCH);
+            jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)", String.class, String.valueOf(efSearch));
+            return jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+        });
+    }
+
+    private String reducedExpression() {
+        return "(reduced_embedding::vector(" + dimensions + "))";
+    }
+
+    private static String toLiteral(float[] vector) {
+        StringBuilder literal = new StringBuilder(vector.length * 12).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) literal.append(',');
+            literal.append(vector[i]);
+        }
+        return literal.append(']').toString();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!isEnabled()) return;
+        Thread.ofVirtual().name("reduced-embedding-backfill").start(this::backfill);
+    }
+
+    private void backfill() {
+        long t0 = System.nanoTime();
+        long lastId = 0;
+        int updated = 0;
+        try {
+            while (true) {
+                List<Long> ids = videoEmbeddingRepository.findIdsWithoutReduced(lastId, dimensions, batchSize);
+                if (ids.isEmpty()) break;
+                List<EmbeddingVector> rows = videoEmbeddingRepository.findVectorsByIds(ids);
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (EmbeddingVector row : rows) {
+                        videoEmbeddingRepository.updateReduced(row.embeddingId(), reduce(row.vector()));
+                    }
+                });
+                updated += rows.size();
+                lastId = ids.getLast();
+            }
+            log.info("Reduced embeddings ({} dims): {} backfilled in {}ms",
+                    dimensions, updated, (System.nanoTime() - t0) / 1_000_000L);
+        } catch (Exception e) {
+            log.error("Failed to backfill reduced embeddings; database search stays single-phase: {}", e.getMessage(), e);
+            return;
+        }
+        createIndex();
+        backfilled = true;
+    }
+
+    /**
+     * Builds the HNSW index for the first phase without blocking writes. A failed concurrent build
+     * leaves an invalid index behind, which is dropped and rebuilt; if the build fails again the
+     * first phase keeps working as a scan.
+     */
+    private void createIndex() {
+        String name = "idx_video_embeddings_reduced_" + dimensions;
+        long t0 = System.nanoTime();
+        try {
+            List<Boolean> valid = jdbcTemplate.queryForList(
+                    "SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ?",
+                    Boolean.class, name);
+            if (!valid.isEmpty() && valid.getFirst()) {
+                indexed = true;
+                return;
+            }
+            if (!valid.isEmpty()) jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON video_embeddings"
+                    + " USING hnsw (" + reducedExpression() + " vector_cosine_ops)"
+                    + " WHERE vector_dims(reduced_embedding) = " + dimensions);
+            indexed = true;
+            log.info("Built index {} in {}ms", name, (System.nanoTime() - t0) / 1_000_000L);
+        } catch (Exception e) {
+            log.warn("Could not build index {}; the reduced first pass scans the table: {}", name, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dimensions", dimensions);
+        stats.put("ready", isReady());
+        stats.put("indexed", indexed);
+        stats.put("rerankFactor", rerankFactor);
+        return stats;
+    }
+}
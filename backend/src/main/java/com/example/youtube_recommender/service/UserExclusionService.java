@@ -0,0 +1,96 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.enums.LikeStatus;
+import com.example.youtube_recommender.enums.WatchStatus;
+import com.example.youtube_recommender.event.ExclusionsChangedEvent;
+import com.example.youtube_recommender.model.UserInteraction;
+import com.example.youtube_recommender.repository.UserInteractionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Per-user set of videos not to recommend again (watched in full or disliked), as a Roaring bitmap
+ * of the vector index ordinals. Searches pass it down so excluded videos are skipped while the
+ * index is traversed rather than filtered out afterwards.
+ *
+ * Bitmaps are loaded from user_interactions on first use and patched from
+ * {@link ExclusionsChangedEvent}s. Published bitmaps are never mutated (copy on write),
+ * so searches can read them without locking.
+ */
+@Service
+public class UserExclusionService {
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final UserInteractionRepository interactionRepository;
+    private final VectorIndexService vectorIndexService;
+    private final boolean enabled;
+    private final Cache<Long, RoaringBitmap> bitmaps;
+
+    public UserExclusionService(UserInteractionRepository interactionRepository,
+                                VectorIndexService vectorIndexService,
+                                PipelineMetrics metrics,
+                                @Value("${recommender.exclusions.enabled:true}") boolean enabled,
+                                @Value("${recommender.exclusions.max-users:100000}") long maxUsers,
+                                @Value("${recommender.exclusions.idle-ttl:PT1H}") Duration idleTtl) {
+        this.interactionRepository = interactionRepository;
+        this.vectorIndexService = vectorIndexService;
+        this.enabled = enabled;
+        this.bitmaps = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+        metrics.monitor(bitmaps, "user-exclusions");
+    }
+
+    /**
+     * Whether an interaction means the video shouldn't be recommended to that user again.
+     */
+    public static boolean isExcluded(UserInteraction interaction) {
+        return interaction.getWatchStatus() == WatchStatus.FULL || interaction.getLikeStatus() == LikeStatus.DISLIKE;
+    }
+
+    /**
+     * The user's excluded ordinals. Read-only; empty when exclusions are disabled.
+     */
+    public RoaringBitmap exclusionsFor(Long userId) {
+        if (!enabled || userId == null) return EMPTY;
+        return bitmaps.get(userId, this::load);
+    }
+
+    private RoaringBitmap load(Long userId) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (String videoId : interactionRepository.findExcludedVideoIds(userId, WatchStatus.FULL, LikeStatus.DISLIKE)) {
+            bitmap.add(vectorIndexService.ordinalFor(videoId));
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExclusionsChanged(ExclusionsChangedEvent event) {
+        if (!enabled) return;
+        // Users not cached yet will load the committed state on their next search.
+        bitmaps.asMap().computeIfPresent(event.userId(), (userId, current) -> {
+            RoaringBitmap next = current.clone();
+            for (String videoId : event.excluded()) next.add(vectorIndexService.ordinalFor(videoId));
+            for (String videoId : event.released()) next.remove(vectorIndexService.ordinalFor(videoId));
+            return next;
+        });
+    }
+
+    public void invalidate(Long userId) {
+        bitmaps.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        bitmaps.invalidateAll();
+    }
+}
@@ -0,0 +1,521 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.event.VideoEmbeddedEvent;
+import com.example.youtube_recommender.index.HnswIndex;
+import com.example.youtube_recommender.index.IndexSnapshot;
+import com.example.youtube_recommender.index.Neighbor;
+import com.example.youtube_recommender.index.QuantizedEmbeddingStore;
+import com.example.youtube_recommender.index.ScoredVideo;
+import com.example.youtube_recommender.index.VectorIndex;
+import com.example.youtube_recommender.index.VectorMath;
+import com.example.youtube_recommender.index.VideoOrdinals;
+import com.example.youtube_recommender.model.VideoEmbedding;
+import com.example.youtube_recommender.repository.EmbeddingVector;
+import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps an in-process index of all video embeddings and answers similarity searches from it.
+ *
+ * Two index types are available (recommender.index.type):
+ * - hnsw: in-heap HNSW graph, approximate, sub-linear search.
+ * - int8: memory-mapped int8-quantized store, full scan off-heap; the top hits are re-ranked
+ *   with the exact float vectors from the database. With reduced embeddings enabled
+ *   ({@link ReducedEmbeddingService}) the store holds the reduced vectors, so the scan reads
+ *   proportionally less memory and only the re-rank uses full dimensions.
+ *
+ * The index is built in the background at startup. Until it is ready, searches fall back to the
+ * pgvector query in {@link VideoEmbeddingRepository#findSimilarByVector}, or its two-phase variant
+ * over the reduced vectors once they are backfilled.
+ * New embeddings are added as soon as their ingestion transaction commits.
+ *
+ * With snapshots enabled, the index and its ordinals are saved periodically and on shutdown
+ * ({@link IndexSnapshot}). On the next start the snapshot is restored before any other bean
+ * hands out ordinals, and only embeddings created after it are read from the database.
+ */
+@Service
+public class VectorIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexService.class);
+    private static final String TYPE_HNSW = "hnsw";
+    private static final String TYPE_INT8 = "int8";
+    // Rows created this long before a snapshot are assumed committed and indexed when it is taken
+    private static final Duration SNAPSHOT_REPLAY_MARGIN = Duration.ofMinutes(5);
+
+    private final VideoEmbeddingRepository videoEmbeddingRepository;
+    private final ReducedEmbeddingService reducedEmbeddingService;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final int loadBatchSize;
+
+    private final String type;
+    private final Path int8Path;
+    private final int rerankFactor;
+    // The int8 store indexes reduced vectors; queries are reduced the same way
+    private final boolean reducedIndex;
+
+    private final boolean snapshotEnabled;
+    private final Path snapshotPath;
+
+    private final VideoOrdinals ordinals = new VideoOrdinals();
+    // Created lazily for int8, which needs the dimension of the first vector
+    private volatile VectorIndex index;
+    private volatile boolean ready = false;
+    // Embeddings with a higher ID are loaded from the database at startup (0 = all of them)
+    private volatile long replayFromId = 0;
+    private final AtomicBoolean changedSinceSnapshot = new AtomicBoolean(false);
+    private volatile Instant lastSnapshotAt;
+
+    public VectorIndexService(VideoEmbeddingRepository videoEmbeddingRepository,
+                              ReducedEmbeddingService reducedEmbeddingService,
+                              PipelineMetrics metrics,
+                              @Value("${recommender.index.enabled:true}") boolean enabled,
+                              @Value("${recommender.index.type:hnsw}") String type,
+                              @Value("${recommender.index.load-batch-size:2000}") int loadBatchSize,
+                              @Value("${recommender.index.hnsw.m:16}") int m,
+                              @Value("${recommender.index.hnsw.ef-construction:200}") int efConstruction,
+                              @Value("${recommender.index.hnsw.ef-search:64}") int efSearch,
+                              @Value("${recommender.index.int8.path:data/embeddings.q8}") String int8Path,
+                              @Value("${recommender.index.int8.rerank-factor:4}") int rerankFactor,
+                              @Value("${recommender.index.snapshot.enabled:true}") boolean snapshotEnabled,
+                              @Value("${recommender.index.snapshot.path:data/index.snapshot}") String snapshotPath) {
+        this.videoEmbeddingRepository = videoEmbeddingRepository;
+        this.reducedEmbeddingService = reducedEmbeddingService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.type = type;
+        this.loadBatchSize = loadBatchSize;
+        this.int8Path = Path.of(int8Path);
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.snapshotEnabled = snapshotEnabled;
+        this.snapshotPath = Path.of(snapshotPath);
+
+        if (!TYPE_HNSW.equals(type) && !TYPE_INT8.equals(type)) {
+            throw new IllegalArgumentException("Unknown recommender.index.type '" + type + "' (expected hnsw or int8)");
+        }
+        this.index = TYPE_HNSW.equals(type) ? new HnswIndex(m, efConstruction, efSearch) : null;
+        this.reducedIndex = TYPE_INT8.equals(type) && reducedEmbeddingService.isEnabled();
+    }
+
+    // ---- Lifecycle ----------------------------------------------------------------------------
+
+    /**
+     * Restores the last snapshot, if any. Runs at bean creation so the ordinals are in place before
+     * dependent beans (exclusions, lexical index) start assigning their own.
+     */
+    @PostConstruct
+    public void restoreSnapshot() {
+        if (!enabled || !snapshotEnabled || !Files.exists(snapshotPath)) return;
+        long t0 = System.nanoTime();
+        try {
+            int efSearch = index instanceof HnswIndex hnsw ? hnsw.getEfSearch() : 0;
+            IndexSnapshot.Loaded loaded = IndexSnapshot.read(snapshotPath, snapshotType(), in -> TYPE_HNSW.equals(type)
+                    ? HnswIndex.readFrom(in, efSearch)
+                    : QuantizedEmbeddingStore.open(int8Path, in));
+
+            if (index instanceof HnswIndex configured && loaded.index() instanceof HnswIndex restored
+                    && (configured.getM() != restored.getM() || configured.getEfConstruction() != restored.getEfConstruction())) {
+                log.info("Index snapshot was built with other HNSW parameters; rebuilding from the database");
+                discardSnapshot();
+                return;
+            }
+            if (ordinals.size() != 0) {
+                if (loaded.index() instanceof Closeable closeable) closeable.close();
+                log.warn("Ordinals were assigned before the snapshot was restored; rebuilding from the database");
+                discardSnapshot();
+                return;
+            }
+
+            for (String videoId : loaded.videoIds()) ordinals.getOrAssign(videoId);
+            index = loaded.index();
+            replayFromId = loaded.replayFromId();
+            lastSnapshotAt = Instant.ofEpochMilli(loaded.createdAtMillis());
+            log.info("Restored {} index snapshot: {} embeddings in {}ms (taken {}); replaying embeddings after id {}",
+                    type, index.size(), (System.nanoTime() - t0) / 1_000_000L, lastSnapshotAt, replayFromId);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring index snapshot {}; rebuilding from the database: {}", snapshotPath.toAbsolutePath(), e.getMessage());
+            discardSnapshot();
+        }
+    }
+
+    // A rebuild recreates the int8 store, so an unused snapshot must not be paired with it later
+    private void discardSnapshot() {
+        try {
+            Files.deleteIfExists(snapshotPath);
+        } catch (IOException e) {
+            log.warn("Could not delete index snapshot {}: {}", snapshotPath.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("Vector index disabled; similarity search uses pgvector.");
+            return;
+        }
+        Thread.ofVirtual().name("vector-index-loader").start(this::loadAll);
+    }
+
+    private void loadAll() {
+        long t0 = System.nanoTime();
+        long lastId = replayFromId;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<EmbeddingVector> page = videoEmbeddingRepository.findVectorsAfter(lastId, PageRequest.of(0, loadBatchSize));
+                if (page.isEmpty()) break;
+                for (EmbeddingVector row : page) {
+                    if (addToIndex(row.videoId(), row.vector())) loaded++;
+                    lastId = row.embeddingId();
+                }
+            }
+            ready = true;
+            log.info("Vector index ({}) ready: {} embeddings loaded from the database in {}ms, {} total",
+                    type, loaded, (System.nanoTime() - t0) / 1_000_000L, index == null ? 0 : index.size());
+        } catch (Exception e) {
+            log.error("Failed to build vector index; staying on pgvector search: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds freshly ingested embeddings once their transaction has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoEmbedded(VideoEmbeddedEvent event) {
+        if (!enabled) return;
+        addToIndex(event.videoId(), event.embedding());
+    }
+
+    private boolean addToIndex(String videoId, float[] vector) {
+        if (vector == null || vector.length == 0) return false;
+        try {
+            float[] indexed = probe(vector);
+            boolean added = indexFor(indexed).add(ordinals.getOrAssign(videoId), indexed);
+            if (added) changedSinceSnapshot.set(true);
+            return added;
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping embedding for video {}: {}", videoId, e.getMessage());
+            return false;
+        }
+    }
+
+    private VectorIndex indexFor(float[] firstVector) {
+        VectorIndex current = index;
+        if (current != null) return current;
+        synchronized (this) {
+            if (index == null) {
+                try {
+                    index = QuantizedEmbeddingStore.create(int8Path, firstVector.length);
+                    log.info("Created int8 embedding store at {} ({} dims)", int8Path.toAbsolutePath(), firstVector.length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot create int8 store at " + int8Path, e);
+                }
+            }
+            return index;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writeSnapshot();
+        if (index instanceof Closeable closeable) closeable.close();
+    }
+
+    // ---- Snapshots ----------------------------------------------------------------------------
+
+    @Scheduled(fixedDelayString = "${recommender.index.snapshot.interval-ms:600000}",
+            initialDelayString = "${recommender.index.snapshot.interval-ms:600000}")
+    public void snapshotPeriodically() {
+        writeSnapshot();
+    }
+
+    /**
+     * Saves the index if it changed since the last snapshot. Searches keep running meanwhile;
+     * inserts wait for the index to be written.
+     */
+    public synchronized void writeSnapshot() {
+        VectorIndex current = index;
+        if (!enabled || !snapshotEnabled || !ready || current == null || !changedSinceSnapshot.getAndSet(false)) return;
+        long t0 = System.nanoTime();
+        try {
+            Long replayFrom = videoEmbeddingRepository.findMaxIdCreatedBefore(LocalDateTime.now().minus(SNAPSHOT_REPLAY_MARGIN));
+            IndexSnapshot.write(snapshotPath, snapshotType(), replayFrom == null ? 0 : replayFrom, current, ordinals);
+            lastSnapshotAt = Instant.now();
+            log.info("Wrote index snapshot: {} embeddings to {} in {}ms",
+                    current.size(), snapshotPath.toAbsolutePath(), (System.nanoTime() - t0) / 1_000_000L);
+        } catch (IOException | RuntimeException e) {
+            changedSinceSnapshot.set(true);
+            log.warn("Failed to write index snapshot: {}", e.getMessage());
+        }
+    }
+
+    // ---- Search -------------------------------------------------------------------------------
+
+    /**
+     * Returns the {@code limit} closest embeddings by cosine similarity, closest first.
+     */
+    public List<VideoEmbedding> findSimilar(float[] vector, int limit) {
+        return findSimilar(vector, limit, null);
+    }
+
+    /**
+     * Like {@link #findSimilar(float[], int)}, never returning the ordinals in {@code excluded}
+     * (see {@link UserExclusionService}). The index skips them during the search.
+     */
+    public List<VideoEmbedding> findSimilar(float[] vector, int limit, RoaringBitmap excluded) {
+        VectorIndex current = index;
+        boolean filtered = excluded != null && !excluded.isEmpty();
+        if (!ready || current == null) {
+            return searchDatabase(vector, limit, filtered ? excluded : null);
+        }
+        IntPredicate accept = filtered ? ordinal -> !excluded.contains(ordinal) : null;
+        return metrics.time(PipelineMetrics.VECTOR_SEARCH, () -> searchIndex(current, vector, limit, accept), "source", type);
+    }
+
+    /**
+     * Video IDs of the {@code limit} closest embeddings, closest first, without loading entities.
+     * Meant for candidate generation: the int8 store skips its exact re-rank here.
+     */
+    public List<String> findSimilarIds(float[] vector, int limit, RoaringBitmap excluded) {
+        return findSimilarScored(vector, limit, excluded).stream().map(ScoredVideo::videoId).toList();
+    }
+
+    /**
+     * Like {@link #findSimilarIds}, with each hit's cosine similarity to {@code vector}.
+     * Index scores are approximate for the int8 store (and taken on the prefix for a reduced one).
+     */
+    public List<ScoredVideo> findSimilarScored(float[] vector, int limit, RoaringBitmap excluded) {
+        VectorIndex current = index;
+        boolean filtered = excluded != null && !excluded.isEmpty();
+        if (!ready || current == null) {
+            return searchDatabase(vector, limit, filtered ? excluded : null).stream()
+                    .map(e -> new ScoredVideo(e.getVideo().getVideoId(), VectorMath.cosine(vector, e.getSemanticEmbedding())))
+                    .toList();
+        }
+        IntPredicate accept = filtered ? ordinal -> !excluded.contains(ordinal) : null;
+        return metrics.time(PipelineMetrics.VECTOR_SEARCH, () -> current.search(probe(vector), limit, accept).stream()
+                .map(n -> new ScoredVideo(ordinals.videoId(n.ordinal()), n.score()))
+                .toList(), "source", type);
+    }
+
+    /**
+     * Cosine similarity of each given video to {@code vector}, from the vectors held in memory.
+     * Videos that are not indexed are left out; before the index is ready the result is empty.
+     */
+    public Map<String, Float> similarities(float[] vector, Collection<String> videoIds) {
+        VectorIndex current = index;
+        Map<String, Float> scores = new HashMap<>();
+        if (!ready || current == null || videoIds.isEmpty()) return scores;
+        float[] probe = probe(vector);
+        for (String videoId : videoIds) {
+            float[] indexed = current.vector(ordinals.ordinalOf(videoId));
+            if (indexed != null) scores.put(videoId, VectorMath.cosine(probe, indexed));
+        }
+        return scores;
+    }
+
+    /**
+     * pgvector search, in two phases (reduced, then full vectors) once the reduced vectors are backfilled.
+     */
+    private List<VideoEmbedding> searchDatabase(float[] vector, int limit, RoaringBitmap excluded) {
+        if (!reducedEmbeddingService.isReady()) {
+            return metrics.time(PipelineMetrics.VECTOR_SEARCH, () -> excluded != null
+                    ? videoEmbeddingRepository.findSimilarByVectorExcluding(vector, limit, toVideoIds(excluded))
+                    : videoEmbeddingRepository.findSimilarByVector(vector, limit), "source", "pgvector");
+        }
+        float[] reduced = reducedEmbeddingService.reduce(vector);
+        int candidates = limit * reducedEmbeddingService.rerankFactor();
+        return metrics.time(PipelineMetrics.VECTOR_SEARCH, () -> {
+            List<Long> ids = reducedEmbeddingService.findCandidateIds(reduced, candidates, excluded != null ? toVideoIds(excluded) : null);
+            return ids.isEmpty() ? new ArrayList<VideoEmbedding>() : videoEmbeddingRepository.findSimilarAmong(ids, vector, limit);
+        }, "source", "pgvector-reduced");
+    }
+
+    /**
+     * The vector as the in-memory index stores it: reduced for a reduced int8 store, else unchanged.
+     */
+    private float[] probe(float[] vector) {
+        return reducedIndex ? reducedEmbeddingService.reduce(vector) : vector;
+    }
+
+    // Snapshots of a reduced store must not be restored with another reduction (or none)
+    private String snapshotType() {
+        return reducedIndex ? type + "-" + reducedEmbeddingService.dimensions() : type;
+    }
+
+    private List<VideoEmbedding> searchIndex(VectorIndex current, float[] vector, int limit, IntPredicate accept) {
+
+        if (current instanceof QuantizedEmbeddingStore) {
+            // Over-fetch on the int8 scores, then re-rank with the exact float vectors.
+            List<VideoEmbedding> candidates = videoEmbeddingRepository.findByVideoIdsInOrder(toVideoIds(current.search(probe(vector), limit * rerankFactor, accept)));
+            return candidates.stream()
+                    .sorted(Comparator.comparingDouble((VideoEmbedding e) -> VectorMath.cosine(vector, e.getSemanticEmbedding())).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        return videoEmbeddingRepository.findByVideoIdsInOrder(toVideoIds(current.search(vector, limit, accept)));
+    }
+
+    /**
+     * Dense ordinal for a video, assigned on first use so callers can key per-video state
+     * by ordinal before the video's embedding reaches the index.
+     */
+    public int ordinalFor(String videoId) {
+        return ordinals.getOrAssign(videoId);
+    }
+
+    /**
+     * Whether the video's embedding is in the index. Only meaningful once {@link #isReady()}.
+     */
+    public boolean containsVideo(String videoId) {
+        VectorIndex current = index;
+        int ordinal = ordinals.ordinalOf(videoId);
+        return current != null && ordinal >= 0 && current.contains(ordinal);
+    }
+
+    /**
+     * Video ID for an ordinal handed out by {@link #ordinalFor}, or null if unknown.
+     */
+    public String videoIdFor(int ordinal) {
+        return ordinals.videoId(ordinal);
+    }
+
+    private List<String> toVideoIds(List<Neighbor> hits) {
+        return hits.stream().map(n -> ordinals.videoId(n.ordinal())).toList();
+    }
+
+    private List<String> toVideoIds(RoaringBitmap ordinalSet) {
+        List<String> ids = new ArrayList<>(ordinalSet.getCardinality());
+        ordinalSet.forEach((int ordinal) -> {
+            String id = ordinals.videoId(ordinal);
+            if (id != null) ids.add(id);
+        });
+        return ids;
+    }
+
+    // ---- Diagnostics --------------------------------------------------------------------------
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setEfSearch(int efSearch) {
+        if (index instanceof HnswIndex hnsw) {
+            hnsw.setEfSearch(efSearch);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        VectorIndex current = index;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("type", type);
+        stats.put("ready", ready);
+        stats.put("size", current == null ? 0 : current.size());
+        stats.put("dimensions", current == null ? 0 : current.dimensions());
+        stats.put("kernels", VectorMath.kernels());
+        stats.put("snapshot", snapshotEnabled ? snapshotPath.toAbsolutePath().toString() : "disabled");
+        stats.put("lastSnapshotAt", lastSnapshotAt == null ? null : lastSnapshotAt.toString());
+        stats.put("replayedFromId", replayFromId);
+        if (current instanceof HnswIndex hnsw) {
+            stats.put("m", hnsw.getM());
+            stats.put("efConstruction", hnsw.getEfConstruction());
+            stats.put("efSearch", hnsw.getEfSearch());
+            stats.put("maxLevel", hnsw.maxLevel());
+        } else if (current instanceof QuantizedEmbeddingStore store) {
+            stats.put("path", int8Path.toAbsolutePath().toString());
+            stats.put("mappedBytes", store.mappedBytes());
+            stats.put("rerankFactor", rerankFactor);
+            stats.put("reducedIndex", reducedIndex);
+        }
+        stats.put("reducedEmbeddings", reducedEmbeddingService.stats());
+        return stats;
+    }
+
+    /**
+     * Measures recall@k of the approximate search against brute force.
+     * Queries are stored vectors with a little Gaussian noise, so they are realistic but not exact hits.
+     */
+    public Map<String, Object> measureRecall(int queries, int k) {
+        VectorIndex idx = index;
+        int n = ordinals.size();
+        if (idx == null || idx.size() == 0 || queries <= 0 || k <= 0) {
+            return Map.of("queries", 0, "k", k, "recall", 0.0);
+        }
+
+        Random random = new Random(7);
+        long approxNanos = 0;
+        long exactNanos = 0;
+        long hits = 0;
+        long expected = 0;
+        int run = 0;
+
+        for (int attempt = 0; run < queries && attempt < queries * 10; attempt++) {
+            float[] base = idx.vector(random.nextInt(n));
+            if (base == null) continue;
+            float[] query = new float[base.length];
+            for (int i = 0; i < base.length; i++) {
+                query[i] = base[i] + (float) (random.nextGaussian() * 0.02);
+            }
+
+            long t0 = System.nanoTime();
+            List<Neighbor> approx = idx.search(query, k);
+            long t1 = System.nanoTime();
+            List<Neighbor> exact = idx.exactSearch(query, k);
+            long t2 = System.nanoTime();
+            approxNanos += t1 - t0;
+            exactNanos += t2 - t1;
+
+            Set<Integer> truth = new HashSet<>();
+            for (Neighbor e : exact) truth.add(e.ordinal());
+            for (Neighbor a : approx) {
+                if (truth.contains(a.ordinal())) hits++;
+            }
+            expected += truth.size();
+            run++;
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("queries", run);
+        report.put("k", k);
+        if (idx instanceof HnswIndex hnsw) report.put("efSearch", hnsw.getEfSearch());
+        report.put("recall", expected == 0 ? 0.0 : (double) hits / expected);
+        report.put("avgApproxMicros", run == 0 ? 0 : approxNanos / run / 1_000);
+        report.put("avgExactMicros", run == 0 ? 0 : exactNanos / run / 1_000);
+        return report;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.youtube_recommender.service;
 
+import com.example.youtube_recommender.event.VideoEmbeddedEvent;
 import com.example.youtube_recommender.model.Video;
 import com.example.youtube_recommender.model.VideoEmbedding;
 import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
@@ -8,9 +9,14 @@ import com.google.api.services.youtube.model.SearchResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration; // Important Import
 import java.time.Instant;
@@ -18,8 +24,28 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Ingests YouTube videos as a staged pipeline: discover -> fetch -> summarize -> embed -> persist.
+ *
+ * Discovery (search + known-ID filter) and fetching (details) happen once per run; long runs
+ * go through {@link IngestionJobService}, which calls the two halves separately. Summaries are generated per video on
+ * virtual threads. The stages are streamed, not separated by barriers: as soon as a batch worth of
+ * summaries is ready it is embedded with one model call, and each embedded video is saved right away,
+ * while the remaining summaries are still being generated. The semaphores cap how many calls hit
+ * Ollama at once (shared across concurrent runs).
+ * Every video is saved in its own short transaction.
+ */
 @Service
 public class VideoIngestionService {
 
@@ -27,70 +53,295 @@ public class VideoIngestionService {
 
     private final YouTubeService youTubeService;
     private final VideoRepository videoRepository;
+    private final KnownVideoIdFilter knownVideoIdFilter;
     private final VideoEmbeddingRepository videoEmbeddingRepository;
+    private final ReducedEmbeddingService reducedEmbeddingService;
     private final ChatModel chatModel;
     private final EmbeddingModel embeddingModel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final PipelineMetrics metrics;
+    private final LlmResultCache llmResultCache;
+
+    private final Semaphore summarizePermits;
+    private final Semaphore embedPermits;
+    private final int embedBatchSize;
 
     public VideoIngestionService(YouTubeService youTubeService,
                                  VideoRepository videoRepository,
+                                 KnownVideoIdFilter knownVideoIdFilter,
                                  VideoEmbeddingRepository videoEmbeddingRepository,
+                                 ReducedEmbeddingService reducedEmbeddingService,
                                  ChatModel chatModel,
-                                 EmbeddingModel embeddingModel) {
+                                 EmbeddingModel embeddingModel,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 PipelineMetrics metrics,
+                                 LlmResultCache llmResultCache,
+                                 @Value("${recommender.ingestion.summarize-concurrency:2}") int summarizeConcurrency,
+                                 @Value("${recommender.ingestion.embed-concurrency:4}") int embedConcurrency,
+                                 @Value("${recommender.ingestion.embed-batch-size:16}") int embedBatchSize) {
         this.youTubeService = youTubeService;
         this.videoRepository = videoRepository;
+        this.knownVideoIdFilter = knownVideoIdFilter;
         this.videoEmbeddingRepository = videoEmbeddingRepository;
+        this.reducedEmbeddingService = reducedEmbeddingService;
         this.chatModel = chatModel;
         this.embeddingModel = embeddingModel;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+        this.llmResultCache = llmResultCache;
+        this.summarizePermits = new Semaphore(Math.max(1, summarizeConcurrency));
+        this.embedPermits = new Semaphore(Math.max(1, embedConcurrency));
+        this.embedBatchSize = Math.max(1, embedBatchSize);
     }
 
-    @Transactional
+    /**
+     * Summary and vector computed for a video that has not been saved yet.
+     */
+    private record ProcessedVideo(Video video, String summary, float[] vector) {}
+
     public int ingestVideos(String topic, long maxResults) {
         log.info("Starting ingestion for topic: {}", topic);
+        return ingestByIds(discoverNew(topic, maxResults)).size();
+    }
 
-        // 1. Search for Video IDs
-        List<SearchResult> searchResults = youTubeService.searchVideos(topic, maxResults);
-        List<String> videoIdsToFetch = new ArrayList<>();
+    /**
+     * Searches the topic and returns the IDs of results we don't have yet, in search order.
+     */
+    public List<String> discoverNew(String topic, long maxResults) {
+        return metrics.time(PipelineMetrics.INGEST_STAGE, () -> {
+            List<SearchResult> searchResults = youTubeService.searchVideos(topic, maxResults);
+            List<String> searchedIds = searchResults.stream()
+                    .map(searchResult -> searchResult.getId().getVideoId())
+                    .toList();
 
-        for (SearchResult searchResult : searchResults) {
-            String videoId = searchResult.getId().getVideoId();
-            // Filter duplicates early
-            if (!videoRepository.existsById(videoId)) {
-                videoIdsToFetch.add(videoId);
-            }
+            // Filter duplicates early, in one set-based check
+            return knownVideoIdFilter.filterNew(searchedIds);
+        }, "stage", "discover");
+    }
+
+    /**
+     * Fetches, summarizes, embeds and saves the given videos. Returns the IDs that were saved, in no
+     * particular order; the rest failed in some stage (already logged and counted).
+     * Callers are expected to pass IDs that are not stored yet.
+     */
+    public List<String> ingestByIds(List<String> videoIds) {
+        if (videoIds.isEmpty()) {
+            return List.of();
         }
+        final long t0 = System.nanoTime();
+
+        // 1. Fetch full details (ContentDetails, Statistics)
+        List<com.google.api.services.youtube.model.Video> fullVideos = metrics.time(PipelineMetrics.INGEST_STAGE,
+                () -> youTubeService.getVideoDetails(videoIds), "stage", "fetch");
 
-        if (videoIdsToFetch.isEmpty()) {
-            return 0;
+        if (fullVideos.isEmpty()) {
+            return List.of();
         }
+        log.info("Fetched {} videos in {}ms", fullVideos.size(), (System.nanoTime() - t0) / 1_000_000L);
 
-        // 2. Fetch Full Details (ContentDetails, Statistics) from YouTube
-        List<com.google.api.services.youtube.model.Video> fullVideos = youTubeService.getVideoDetails(videoIdsToFetch);
-        int savedCount = 0;
+        List<String> saved = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // 2. Summarize every video concurrently; each summary (or failure) is handed over when done
+            BlockingQueue<Optional<ProcessedVideo>> summaries = new LinkedBlockingQueue<>();
+            for (com.google.api.services.youtube.model.Video googleVideo : fullVideos) {
+                executor.execute(() -> {
+                    ProcessedVideo summarized = null;
+                    try {
+                        summarized = runItem("summarize", "video " + googleVideo.getId(), () -> summarize(toEntity(googleVideo)));
+                    } finally {
+                        summaries.add(Optional.ofNullable(summarized));
+                    }
+                });
+            }
 
-        // 3. Process and Save
-        for (com.google.api.services.youtube.model.Video googleVideo : fullVideos) {
+            // 3. + 4. Embed each full batch while later summaries are still running, then persist it
+            List<CompletableFuture<List<String>>> batches = new ArrayList<>();
+            List<ProcessedVideo> batch = new ArrayList<>(embedBatchSize);
             try {
-                processAndSaveVideo(googleVideo);
-                savedCount++;
+                for (int received = 1; received <= fullVideos.size(); received++) {
+                    summaries.take().ifPresent(batch::add);
+                    if (batch.size() == embedBatchSize || (received == fullVideos.size() && !batch.isEmpty())) {
+                        List<ProcessedVideo> ready = List.copyOf(batch);
+                        batch.clear();
+                        batches.add(CompletableFuture.supplyAsync(() -> embedAndPersist(ready), executor));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Ingestion interrupted; {} summarized videos were not embedded", batch.size());
+            }
+            for (CompletableFuture<List<String>> future : batches) {
+                saved.addAll(future.join());
+            }
+        }
+        // Every fetched video was either saved or dropped by a stage; IDs YouTube didn't return
+        // (deleted, private) never entered a stage
+        metrics.count(PipelineMetrics.INGEST_VIDEOS, saved.size(), "outcome", "saved");
+        metrics.count(PipelineMetrics.INGEST_VIDEOS, fullVideos.size() - saved.size(), "outcome", "failed");
+        metrics.count(PipelineMetrics.INGEST_VIDEOS, videoIds.size() - fullVideos.size(), "outcome", "not_found");
+
+        log.info("Ingestion complete. Saved {} new videos in {}ms.", saved.size(), (System.nanoTime() - t0) / 1_000_000L);
+        return saved;
+    }
+
+    // ---- Pipeline stages ----------------------------------------------------------------------
+
+    /**
+     * Stage 2: LLM summary of title + description.
+     */
+    private ProcessedVideo summarize(Video video) {
+        String rawDescription = video.getTitle() + "\n" + video.getDescription();
+        String summaryPrompt = "Summarize the following YouTube video description in 2 sentences, focusing on the key topics taught: \n\n" + rawDescription;
+        // Reuse the stored summary when this exact prompt was summarized before
+        String summary = llmResultCache.summary(summaryPrompt, () -> withPermit(summarizePermits,
+                () -> metrics.time(PipelineMetrics.LLM_GENERATE, () -> chatModel.call(summaryPrompt), "mode", "summarize")));
+        return new ProcessedVideo(video, summary, null);
+    }
+
+    /**
+     * Stage 3: embeds a batch of summaries with one model call.
+     * Texts embedded before (same text, same model) come from the LLM cache and are not sent.
+     * If the batch call fails or comes back incomplete, the affected items are retried one by one;
+     * items that still fail are dropped from the run.
+     */
+    private List<ProcessedVideo> embedBatch(List<ProcessedVideo> batch) {
+        List<String> texts = batch.stream().map(VideoIngestionService::textToEmbed).toList();
+        float[][] vectors = new float[batch.size()][];
+
+        Map<String, float[]> cached = llmResultCache.embeddings(texts);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            vectors[i] = cached.get(texts.get(i));
+            if (vectors[i] == null) missing.add(i);
+        }
+
+        if (!missing.isEmpty()) {
+            List<String> toEmbed = missing.stream().map(texts::get).toList();
+            metrics.record(PipelineMetrics.INGEST_EMBED_BATCH, toEmbed.size());
+            try {
+                EmbeddingResponse response = withPermit(embedPermits,
+                        () -> metrics.time(PipelineMetrics.EMBEDDINGS_MODEL, () -> embeddingModel.embedForResponse(toEmbed), "source", "ingest"));
+                List<Embedding> results = response.getResults();
+                for (int position = 0; position < results.size(); position++) {
+                    Embedding result = results.get(position);
+                    // Map back by the model's reported index; fall back to response order.
+                    int index = result.getIndex() != null ? result.getIndex() : position;
+                    if (index >= 0 && index < missing.size()) {
+                        int target = missing.get(index);
+                        vectors[target] = result.getOutput();
+                        llmResultCache.putEmbedding(texts.get(target), vectors[target]);
+                    }
+                }
             } catch (Exception e) {
-                log.error("Failed to ingest video {}: {}", googleVideo.getId(), e.getMessage());
+                log.warn("Batch embedding of {} texts failed, retrying individually: {}", toEmbed.size(), e.getMessage());
+            }
+        }
+
+        List<ProcessedVideo> embedded = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ProcessedVideo processed = batch.get(i);
+            float[] vector = vectors[i];
+            if (vector == null || vector.length == 0) {
+                try {
+                    String text = texts.get(i);
+                    vector = withPermit(embedPermits,
+                            () -> metrics.time(PipelineMetrics.EMBEDDINGS_MODEL, () -> embeddingModel.embed(text), "source", "ingest"));
+                    llmResultCache.putEmbedding(text, vector);
+                } catch (Exception e) {
+                    log.error("Failed to embed video {}: {}", processed.video().getVideoId(), e.getMessage());
+                    metrics.count(PipelineMetrics.INGEST_FAILURES, 1, "stage", "embed");
+                    continue;
+                }
             }
+            embedded.add(new ProcessedVideo(processed.video(), processed.summary(), vector));
         }
+        return embedded;
+    }
+
+    private static String textToEmbed(ProcessedVideo processed) {
+        Video video = processed.video();
+        return "Title: " + video.getTitle() + "\nTags: " + video.getTags() + "\nSummary: " + processed.summary();
+    }
+
+    /**
+     * Stages 3 and 4 for one batch: embeds it, then saves each video. Returns the saved IDs.
+     */
+    private List<String> embedAndPersist(List<ProcessedVideo> batch) {
+        List<ProcessedVideo> embedded = runItem("embed", "videos " + videoIds(batch), () -> embedBatch(batch));
+        if (embedded == null) return List.of();
+        List<String> saved = new ArrayList<>(embedded.size());
+        for (ProcessedVideo processed : embedded) {
+            String videoId = processed.video().getVideoId();
+            if (runItem("persist", "video " + videoId, () -> persist(processed)) != null) saved.add(videoId);
+        }
+        return saved;
+    }
 
-        log.info("Ingestion complete. Saved {} new videos.", savedCount);
-        return savedCount;
+    private static String videoIds(List<ProcessedVideo> batch) {
+        return batch.stream().map(processed -> processed.video().getVideoId()).collect(Collectors.joining(", "));
     }
 
-    private void processAndSaveVideo(com.google.api.services.youtube.model.Video googleVideo) {
-        // 1. Convert Google Video to Our Entity
+    /**
+     * Stage 4: saves the video and its embedding in one short transaction.
+     */
+    private VideoEmbedding persist(ProcessedVideo processed) {
+        return transactionTemplate.execute(status -> {
+            Video video = videoRepository.save(processed.video());
+
+            VideoEmbedding embedding = videoEmbeddingRepository.save(VideoEmbedding.builder()
+                    .video(video)
+                    .contentSummary(processed.summary())
+                    .semanticEmbedding(processed.vector())
+                    .reducedEmbedding(reducedEmbeddingService.reduce(processed.vector()))
+                    .build());
+
+            // Let in-memory indexes pick it up once the transaction commits
+            eventPublisher.publishEvent(new VideoEmbeddedEvent(video.getVideoId(), embedding.getEmbeddingId(), processed.vector(),
+                    video.getTitle(), video.getTags(), processed.summary()));
+            return embedding;
+        });
+    }
+
+    /**
+     * Runs one stage on one item (a video, or a batch for embed), timed under
+     * {@code recommender.ingest.stage} and tagged with the stage name. A failure is logged with the
+     * item's {@code label} (e.g. "video abc" or "videos abc, def") and yields null, so one bad video
+     * doesn't sink the run.
+     */
+    private <R> R runItem(String stageName, String label, Supplier<R> stage) {
+        try {
+            return metrics.time(PipelineMetrics.INGEST_STAGE, stage, "stage", stageName);
+        } catch (RuntimeException e) {
+            log.error("Failed to {} {}: {}", stageName, label, e.getMessage());
+            metrics.count(PipelineMetrics.INGEST_FAILURES, 1, "stage", stageName);
+            return null;
+        }
+    }
+
+    private static <T> T withPermit(Semaphore permits, Supplier<T> call) {
+        permits.acquireUninterruptibly();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    // ---- Mapping ------------------------------------------------------------------------------
+
+    /**
+     * Stage 1 (per video): converts the Google API model to our entity.
+     */
+    private Video toEntity(com.google.api.services.youtube.model.Video googleVideo) {
         Video video = new Video();
         video.setVideoId(googleVideo.getId());
         video.setTitle(googleVideo.getSnippet().getTitle());
         video.setDescription(googleVideo.getSnippet().getDescription());
         video.setChannelName(googleVideo.getSnippet().getChannelTitle());
 
-        // --- NEW FIELDS MAPPING ---
-
         // Duration (ISO 8601 format like "PT1H" -> Seconds)
         if (googleVideo.getContentDetails() != null && googleVideo.getContentDetails().getDuration() != null) {
             try {
@@ -125,25 +376,6 @@ public class VideoIngestionService {
             video.setPublishedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(epoch), ZoneId.systemDefault()));
         }
 
-        // Save Video Parent
-        video = videoRepository.save(video);
-
-        // 2. Generate Summary using LLM
-        String rawDescription = video.getTitle() + "\n" + video.getDescription();
-        String summaryPrompt = "Summarize the following YouTube video description in 2 sentences, focusing on the key topics taught: \n\n" + rawDescription;
-        String summary = chatModel.call(summaryPrompt);
-
-        // 3. Generate Embedding
-        String textToEmbed = "Title: " + video.getTitle() + "\nTags: " + video.getTags() + "\nSummary: " + summary;
-        float[] vector = embeddingModel.embed(textToEmbed);
-
-        // 4. Save Embedding Child
-        VideoEmbedding embedding = VideoEmbedding.builder()
-                .video(video)
-                .contentSummary(summary)
-                .semanticEmbedding(vector)
-                .build();
-
-        videoEmbeddingRepository.save(embedding);
+        return video;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.example.youtube_recommender.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of raw YouTube API responses with their ETags, one file per request URL.
+ *
+ * File format: first line is the ETag (may be empty), the rest is the JSON body.
+ * The file's modification time is when the response was last confirmed fresh.
+ *
+ * Every request URL gets its own file, so the directory is pruned periodically: entries not
+ * confirmed within the retention period are deleted, then the oldest ones until the directory fits
+ * in max-size. Temp files left behind by a crash are removed as well.
+ */
+@Component
+public class YouTubeResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(YouTubeResponseCache.class);
+
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Older temp files can't belong to a write in progress
+    private static final Duration TEMP_FILE_AGE = Duration.ofHours(1);
+
+    public record Entry(String etag, String body, Instant storedAt) {}
+
+    private record CachedFile(Path path, Instant modifiedAt, long size) {}
+
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration retention;
+    private final long maxSizeBytes;
+
+    public YouTubeResponseCache(@Value("${recommender.youtube.cache.enabled:true}") boolean enabled,
+                                @Value("${recommender.youtube.cache.dir:data/youtube-cache}") String directory,
+                                @Value("${recommender.youtube.cache.retention:P7D}") Duration retention,
+                                @Value("${recommender.youtube.cache.max-size:200MB}") DataSize maxSize) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.retention = retention;
+        this.maxSizeBytes = maxSize.toBytes();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<Entry> get(String requestKey) {
+        if (!enabled) return Optional.empty();
+        Path file = fileFor(requestKey);
+        if (!Files.exists(file)) return Optional.empty();
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            int newline = content.indexOf('\n');
+            if (newline < 0) return Optional.empty();
+            return Optional.of(new Entry(content.substring(0, newline), content.substring(newline + 1),
+                    Files.getLastModifiedTime(file).toInstant()));
+        } catch (IOException e) {
+            log.warn("Unreadable YouTube cache entry {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void put(String requestKey, String etag, String body) {
+        if (!enabled) return;
+        Path file = fileFor(requestKey);
+        try {
+            Files.createDirectories(directory);
+            // Write then rename, so concurrent readers never see half a file
+            Path tmp = Files.createTempFile(directory, "yt", TEMP_SUFFIX);
+            try {
+                Files.writeString(tmp, (etag == null ? "" : etag) + "\n" + body, StandardCharsets.UTF_8);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write YouTube cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Marks a cached entry as fresh again (after a 304 Not Modified).
+     */
+    public void touch(String requestKey) {
+        if (!enabled) return;
+        try {
+            Files.setLastModifiedTime(fileFor(requestKey), FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("Failed to touch YouTube cache entry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes entries older than the retention period, then the oldest entries until the cache fits
+     * in its max size.
+     *
+     * @return the number of entries deleted
+     */
+    @Scheduled(fixedDelayString = "${recommender.youtube.cache.prune-interval-ms:3600000}")
+    public int prune() {
+        if (!enabled || !Files.isDirectory(directory)) return 0;
+        Instant now = Instant.now();
+        List<CachedFile> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                Instant modifiedAt = Files.getLastModifiedTime(path).toInstant();
+                if (name.endsWith(TEMP_SUFFIX) && modifiedAt.plus(TEMP_FILE_AGE).isBefore(now)) {
+                    Files.deleteIfExists(path);
+                } else if (name.endsWith(ENTRY_SUFFIX)) {
+                    entries.add(new CachedFile(path, modifiedAt, Files.size(path)));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan YouTube cache {}: {}", directory, e.getMessage());
+            return 0;
+        }
+
+        entries.sort(Comparator.comparing(CachedFile::modifiedAt));
+        long totalBytes = entries.stream().mapToLong(CachedFile::size).sum();
+        Instant cutoff = now.minus(retention);
+        int deleted = 0;
+        for (CachedFile entry : entries) {
+            if (!entry.modifiedAt().isBefore(cutoff) && totalBytes <= maxSizeBytes) break;
+            try {
+                Files.deleteIfExists(entry.path());
+                totalBytes -= entry.size();
+                deleted++;
+            } catch (IOException e) {
+                log.debug("Failed to delete YouTube cache entry {}: {}", entry.path(), e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Pruned {} YouTube cache entries; {} KB left", deleted, totalBytes / 1024);
+        }
+        return deleted;
+    }
+
+    Path fileFor(String requestKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(requestKey.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + ENTRY_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
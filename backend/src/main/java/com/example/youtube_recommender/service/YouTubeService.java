@@ -1,6 +1,13 @@
 package com.example.youtube_recommender.service;
 
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.SearchListResponse;
@@ -10,10 +17,26 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
+/**
+ * YouTube Data API client.
+ *
+ * - search.list follows nextPageToken until maxResults is reached (the API caps a page at 50).
+ * - videos.list is sent in chunks of 50 IDs (the API limit), fetched concurrently.
+ * - Responses are cached on disk with their ETag. Within max-age a cached response is used as is;
+ *   after that the request is revalidated with If-None-Match and a 304 reuses the cached body.
+ */
 @Service
 public class YouTubeService {
 
@@ -21,50 +44,153 @@ public class YouTubeService {
     private String apiKey;
 
     private static final String APPLICATION_NAME = "SpringAI-Recommender";
-    private YouTube youtubeService;
-
-    // Initialize service once
-    private YouTube getService() throws GeneralSecurityException, IOException {
-        if (youtubeService == null) {
-            youtubeService = new YouTube.Builder(
-                    GoogleNetHttpTransport.newTrustedTransport(),
-                    GsonFactory.getDefaultInstance(),
-                    null)
-                    .setApplicationName(APPLICATION_NAME)
-                    .build();
-        }
-        return youtubeService;
+    private static final int MAX_IDS_PER_REQUEST = 50;
+    private static final long MAX_PAGE_SIZE = 50;
+    private static final JsonFactory JSON = GsonFactory.getDefaultInstance();
+
+    private final YouTube youtubeService;
+    private final YouTubeResponseCache responseCache;
+    private final PipelineMetrics metrics;
+    private final Semaphore detailPermits;
+    private final Duration cacheMaxAge;
+
+    public YouTubeService(HttpTransport youtubeHttpTransport,
+                          YouTubeResponseCache responseCache,
+                          PipelineMetrics metrics,
+                          @Value("${recommender.youtube.root-url:" + YouTube.DEFAULT_ROOT_URL + "}") String rootUrl,
+                          @Value("${recommender.youtube.detail-concurrency:4}") int detailConcurrency,
+                          @Value("${recommender.youtube.cache.max-age:PT10M}") Duration cacheMaxAge) {
+        this.youtubeService = new YouTube.Builder(youtubeHttpTransport, JSON, null)
+                .setApplicationName(APPLICATION_NAME)
+                .setRootUrl(rootUrl)
+                .build();
+        this.responseCache = responseCache;
+        this.metrics = metrics;
+        this.detailPermits = new Semaphore(Math.max(1, detailConcurrency));
+        this.cacheMaxAge = cacheMaxAge;
     }
 
     public List<SearchResult> searchVideos(String query, long maxResults) {
         try {
-            YouTube.Search.List request = getService().search().list(Collections.singletonList("snippet"));
-            SearchListResponse response = request.setKey(apiKey)
-                    .setQ(query)
-                    .setType(Collections.singletonList("video"))
-                    .setMaxResults(maxResults)
-                    .execute();
-            return response.getItems();
+            List<SearchResult> results = new ArrayList<>();
+            String pageToken = null;
+            do {
+                YouTube.Search.List request = youtubeService.search().list(Collections.singletonList("snippet"))
+                        .setKey(apiKey)
+                        .setQ(query)
+                        .setType(Collections.singletonList("video"))
+                        .setMaxResults(Math.min(MAX_PAGE_SIZE, maxResults - results.size()))
+                        .setPageToken(pageToken);
+                SearchListResponse response = execute(request, SearchListResponse.class, "search.list");
+                if (response.getItems() == null || response.getItems().isEmpty()) break;
+                results.addAll(response.getItems());
+                pageToken = response.getNextPageToken();
+            } while (pageToken != null && results.size() < maxResults);
+
+            return results.size() > maxResults ? results.subList(0, (int) maxResults) : results;
         } catch (Exception e) {
             throw new RuntimeException("Failed to search YouTube", e);
         }
     }
 
     /**
-     * NEW METHOD: Fetches full details (Statistics, ContentDetails) for a list of video IDs.
+     * Fetches full details (Statistics, ContentDetails) for a list of video IDs, in the given order.
      */
     public List<com.google.api.services.youtube.model.Video> getVideoDetails(List<String> videoIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < videoIds.size(); i += MAX_IDS_PER_REQUEST) {
+            chunks.add(videoIds.subList(i, Math.min(i + MAX_IDS_PER_REQUEST, videoIds.size())));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<List<com.google.api.services.youtube.model.Video>>> futures = new ArrayList<>();
+            for (List<String> chunk : chunks) {
+                futures.add(CompletableFuture.supplyAsync(() -> fetchDetailsChunk(chunk), executor));
+            }
+
+            List<com.google.api.services.youtube.model.Video> videos = new ArrayList<>(videoIds.size());
+            for (CompletableFuture<List<com.google.api.services.youtube.model.Video>> future : futures) {
+                videos.addAll(future.join());
+            }
+            return videos;
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to fetch video details", e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private List<com.google.api.services.youtube.model.Video> fetchDetailsChunk(List<String> ids) {
+        detailPermits.acquireUninterruptibly();
         try {
-            YouTube.Videos.List request = getService().videos()
-                    .list(List.of("snippet", "contentDetails", "statistics"));
+            YouTube.Videos.List request = youtubeService.videos()
+                    .list(List.of("snippet", "contentDetails", "statistics"))
+                    .setKey(apiKey)
+                    .setId(ids);
+            VideoListResponse response = execute(request, VideoListResponse.class, "videos.list");
+            return response.getItems() != null ? response.getItems() : List.of();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } finally {
+            detailPermits.release();
+        }
+    }
 
-            VideoListResponse response = request.setKey(apiKey)
-                    .setId(videoIds)
-                    .execute();
+    // ---- HTTP + cache -------------------------------------------------------------------------
 
-            return response.getItems();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch video details", e);
+    /**
+     * Executes a request through the on-disk ETag cache and parses the JSON body.
+     */
+    private <T extends GenericJson> T execute(AbstractGoogleClientRequest<T> request, Class<T> type,
+                                              String operation) throws IOException {
+        String cacheKey = cacheKey(request);
+        Optional<YouTubeResponseCache.Entry> cached = responseCache.get(cacheKey);
+
+        if (cached.isPresent() && cached.get().storedAt().plus(cacheMaxAge).isAfter(Instant.now())) {
+            metrics.count(PipelineMetrics.YOUTUBE_CACHE, 1, "operation", operation, "result", "fresh");
+            return JSON.fromString(cached.get().body(), type);
+        }
+        if (cached.isPresent() && !cached.get().etag().isEmpty()) {
+            request.getRequestHeaders().setIfNoneMatch(cached.get().etag());
+        }
+
+        String outcome = "error";
+        Instant t0 = Instant.now();
+        try {
+            HttpResponse response = request.executeUnparsed();
+            if (response.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_MODIFIED && cached.isPresent()) {
+                response.disconnect();
+                outcome = "not_modified";
+                return revalidated(cacheKey, cached.get(), type, operation);
+            }
+            String body = response.parseAsString();
+            responseCache.put(cacheKey, response.getHeaders().getETag(), body);
+            outcome = "success";
+            metrics.count(PipelineMetrics.YOUTUBE_CACHE, 1, "operation", operation, "result", "miss");
+            return JSON.fromString(body, type);
+        } catch (HttpResponseException e) {
+            // google-http-client reports 304 as an error status
+            if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_MODIFIED && cached.isPresent()) {
+                outcome = "not_modified";
+                return revalidated(cacheKey, cached.get(), type, operation);
+            }
+            throw e;
+        } finally {
+            metrics.timer(PipelineMetrics.YOUTUBE_API, "operation", operation, "outcome", outcome)
+                    .record(Duration.between(t0, Instant.now()));
         }
     }
-}
\ No newline at end of file
+
+    private <T> T revalidated(String cacheKey, YouTubeResponseCache.Entry entry, Class<T> type, String operation) throws IOException {
+        responseCache.touch(cacheKey);
+        metrics.count(PipelineMetrics.YOUTUBE_CACHE, 1, "operation", operation, "result", "revalidated");
+        return JSON.fromString(entry.body(), type);
+    }
+
+    /**
+     * The request URL without the API key, so rotating keys doesn't invalidate the cache.
+     */
+    private static String cacheKey(AbstractGoogleClientRequest<?> request) {
+        GenericUrl url = request.buildHttpRequestUrl();
+        url.remove("key");
+        return url.build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.youtube_recommender.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 20_000;
+
+    @Test
+    void neverReportsAnInsertedValueAsAbsent() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) filter.put("video-" + i);
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain("video-" + i), "false negative for video-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) filter.put("video-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < INSERTIONS; i++) {
+            if (filter.mightContain("other-" + i)) falsePositives++;
+        }
+        double rate = (double) falsePositives / INSERTIONS;
+        assertTrue(rate < 0.02, "false positive rate was " + rate);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.youtube_recommender.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTest {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    @Test
+    void scoresMatchTheBm25Formula() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add(0, body("spring boot tutorial"));
+        index.add(1, body("spring cleaning"));
+        index.add(2, body("java records explained in depth"));
+
+        List<Neighbor> hits = index.search("boot", 10, null);
+
+        // One matching document out of three; lengths 3, 2 and 4 (stop word "in" dropped) -> average 3
+        double idf = Math.log(1 + (3 - 1 + 0.5) / (1 + 0.5));
+        double norm = K1 * (1 - B + B * 3 / 3.0);
+        double expected = idf * 1 * (K1 + 1) / (1 + norm);
+        assertEquals(1, hits.size());
+        assertEquals(0, hits.getFirst().ordinal());
+        assertEquals(expected, hits.getFirst().score(), 1e-5);
+    }
+
+    @Test
+    void rankingFavoursRareTermsShortDocumentsAndWeightedFields() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add(0, body("kotlin coroutines"));
+        index.add(1, body("kotlin coroutines and flows with many other words in a long description"));
+        index.add(2, List.of(new Bm25Index.Field("coroutines", 3f), new Bm25Index.Field("kotlin", 1f)));
+        index.add(3, body("kotlin basics"));
+
+        List<Neighbor> hits = index.search("kotlin coroutines", 10, null);
+
+        assertEquals(List.of(2, 0, 1, 3), hits.stream().map(Neighbor::ordinal).toList());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+    }
+
+    @Test
+    void reindexRemoveAndFilterAreApplied() {
+        Bm25Index index = new Bm25Index(K1, B);
+        index.add(0, body("docker compose"));
+        index.add(1, body("docker swarm"));
+        index.add(2, body("kubernetes"));
+
+        index.add(2, body("docker kubernetes"));
+        index.remove(0);
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(1, 2), index.search("docker", 10, null).stream().map(Neighbor::ordinal).sorted().toList());
+        assertEquals(List.of(2), index.search("docker", 10, ordinal -> ordinal != 1).stream().map(Neighbor::ordinal).toList());
+        assertEquals(List.of(), index.search("compose", 10, null));
+    }
+
+    @Test
+    void tokenizerDropsStopWordsAndSplitsCompounds() {
+        assertEquals(List.of("intro", "c++", "node.js", "node", "js"), Bm25Index.tokenize("An intro to C++ and Node.js."));
+    }
+
+    private static List<Bm25Index.Field> body(String text) {
+        return List.of(new Bm25Index.Field(text, 1f));
+    }
+}
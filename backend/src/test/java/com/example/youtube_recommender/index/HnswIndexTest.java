@@ -0,0 +1,118 @@
+package com.example.youtube_recommender.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    private static final int COUNT = 2000;
+    private static final int DIMENSIONS = 32;
+    private static final int K = 10;
+    private static final int QUERIES = 50;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void searchRecallMatchesBruteForce() {
+        HnswIndex index = build();
+
+        double recall = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = randomVector();
+            recall += overlap(index.search(query, K), index.exactSearch(query, K));
+        }
+        recall /= QUERIES * K;
+
+        assertTrue(recall >= 0.9, "recall@" + K + " was " + recall);
+    }
+
+    @Test
+    void filteredSearchOnlyReturnsAcceptedOrdinals() {
+        HnswIndex index = build();
+        IntPredicate even = ordinal -> ordinal % 2 == 0;
+
+        double recall = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = randomVector();
+            List<Neighbor> hits = index.search(query, K, even);
+            assertEquals(K, hits.size());
+            assertTrue(hits.stream().allMatch(hit -> even.test(hit.ordinal())));
+            recall += overlap(hits, exactSearch(index, query, K, even));
+        }
+        recall /= QUERIES * K;
+
+        assertTrue(recall >= 0.9, "filtered recall@" + K + " was " + recall);
+    }
+
+    @Test
+    void addRejectsDuplicateOrdinal() {
+        HnswIndex index = new HnswIndex(16, 100, 64);
+        assertTrue(index.add(0, randomVector()));
+        assertFalse(index.add(0, randomVector()));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void writeToAndReadFromRoundTrip() throws Exception {
+        HnswIndex index = build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.writeTo(out);
+        }
+
+        HnswIndex restored;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = HnswIndex.readFrom(in, index.getEfSearch());
+        }
+
+        assertEquals(index.size(), restored.size());
+        assertEquals(index.dimensions(), restored.dimensions());
+        assertEquals(index.maxLevel(), restored.maxLevel());
+        assertEquals(index.getM(), restored.getM());
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = randomVector();
+            assertEquals(index.search(query, K), restored.search(query, K));
+        }
+    }
+
+    private HnswIndex build() {
+        HnswIndex index = new HnswIndex(16, 100, 64);
+        for (int ordinal = 0; ordinal < COUNT; ordinal++) {
+            index.add(ordinal, randomVector());
+        }
+        return index;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) vector[i] = (float) random.nextGaussian();
+        return vector;
+    }
+
+    private static List<Neighbor> exactSearch(HnswIndex index, float[] query, int k, IntPredicate accept) {
+        // Brute force over the accepted ordinals only
+        return index.exactSearch(query, index.size()).stream()
+                .filter(hit -> accept.test(hit.ordinal()))
+                .limit(k)
+                .toList();
+    }
+
+    private static int overlap(List<Neighbor> actual, List<Neighbor> expected) {
+        Set<Integer> truth = new HashSet<>();
+        expected.forEach(hit -> truth.add(hit.ordinal()));
+        return (int) actual.stream().filter(hit -> truth.contains(hit.ordinal())).count();
+    }
+}
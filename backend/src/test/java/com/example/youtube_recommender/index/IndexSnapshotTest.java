@@ -0,0 +1,57 @@
+package com.example.youtube_recommender.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IndexSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripRestoresIndexAndOrdinals() throws Exception {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(16, 100, 64);
+        VideoOrdinals ordinals = new VideoOrdinals();
+        float[][] vectors = new float[500][16];
+        for (int i = 0; i < vectors.length; i++) {
+            for (int j = 0; j < 16; j++) vectors[i][j] = (float) random.nextGaussian();
+            index.add(ordinals.getOrAssign("video-" + i), vectors[i]);
+        }
+        Path path = dir.resolve("hnsw.snapshot");
+
+        IndexSnapshot.write(path, "hnsw", 42L, index, ordinals);
+        IndexSnapshot.Loaded loaded = IndexSnapshot.read(path, "hnsw", in -> HnswIndex.readFrom(in, 64));
+
+        assertEquals(42L, loaded.replayFromId());
+        assertEquals(ordinals.size(), loaded.videoIds().size());
+        for (int ordinal = 0; ordinal < ordinals.size(); ordinal++) {
+            assertEquals(ordinals.videoId(ordinal), loaded.videoIds().get(ordinal));
+        }
+        HnswIndex restored = assertInstanceOf(HnswIndex.class, loaded.index());
+        assertEquals(index.size(), restored.size());
+        for (int q = 0; q < 20; q++) {
+            float[] query = vectors[random.nextInt(vectors.length)];
+            assertEquals(index.search(query, 10), restored.search(query, 10));
+        }
+    }
+
+    @Test
+    void readRejectsOtherIndexType() throws Exception {
+        HnswIndex index = new HnswIndex(16, 100, 64);
+        VideoOrdinals ordinals = new VideoOrdinals();
+        index.add(ordinals.getOrAssign("video"), new float[]{1f, 0f, 0f});
+        Path path = dir.resolve("hnsw.snapshot");
+        IndexSnapshot.write(path, "hnsw", 0L, index, ordinals);
+
+        assertThrows(IOException.class, () -> IndexSnapshot.read(path, "int8", in -> HnswIndex.readFrom(in, 64)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.youtube_recommender.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedEmbeddingStoreTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void quantizedVectorsStayCloseToTheOriginals() throws Exception {
+        Random random = new Random(3);
+        try (QuantizedEmbeddingStore store = QuantizedEmbeddingStore.create(dir.resolve("store.q8"), DIMENSIONS)) {
+            float[] vector = randomVector(random);
+            store.add(0, vector);
+
+            float[] expected = VectorMath.normalize(vector);
+            float[] restored = store.vector(0);
+            for (int i = 0; i < DIMENSIONS; i++) {
+                assertEquals(expected[i], restored[i], 0.02f);
+            }
+            assertEquals(0, store.search(vector, 1).getFirst().ordinal());
+        }
+    }
+
+    @Test
+    void snapshotRoundTripRemapsTheStoreFile() throws Exception {
+        Random random = new Random(5);
+        Path storePath = dir.resolve("store.q8");
+        Path snapshotPath = dir.resolve("int8.snapshot");
+        VideoOrdinals ordinals = new VideoOrdinals();
+        float[][] vectors = new float[300][];
+        float[][] stored = new float[vectors.length][];
+
+        try (QuantizedEmbeddingStore store = QuantizedEmbeddingStore.create(storePath, DIMENSIONS)) {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = randomVector(random);
+                int ordinal = ordinals.getOrAssign("video-" + i);
+                // Leave gaps, so the presence bitmap is part of what has to survive
+                if (i % 3 != 0) store.add(ordinal, vectors[i]);
+                stored[i] = store.vector(ordinal);
+            }
+            IndexSnapshot.write(snapshotPath, "int8", 7L, store, ordinals);
+        }
+
+        IndexSnapshot.Loaded loaded = IndexSnapshot.read(snapshotPath, "int8", in -> QuantizedEmbeddingStore.open(storePath, in));
+        try (QuantizedEmbeddingStore restored = assertInstanceOf(QuantizedEmbeddingStore.class, loaded.index())) {
+            assertEquals(7L, loaded.replayFromId());
+            assertEquals(vectors.length * 2 / 3, restored.size());
+            for (int i = 0; i < vectors.length; i++) {
+                if (i % 3 == 0) {
+                    assertFalse(restored.contains(i));
+                } else {
+                    assertTrue(restored.contains(i));
+                    assertArrayEquals(stored[i], restored.vector(i));
+                }
+            }
+            assertEquals(1, restored.search(vectors[1], 1).getFirst().ordinal());
+
+            // The re-opened store keeps accepting writes
+            assertTrue(restored.add(vectors.length, vectors[0]));
+            assertTrue(restored.contains(vectors.length));
+        }
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) vector[i] = (float) random.nextGaussian();
+        return vector;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.youtube_recommender.index;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The SIMD kernels must agree with the scalar ones for every length, including tails that are not
+ * a multiple of the lane count. Float reductions sum in a different order, so they are compared
+ * with a relative tolerance; element-wise kernels and the int8 dot product must match exactly.
+ */
+class VectorKernelsTest {
+
+    // Every tail length for up to 512-bit lanes, plus the embedding sizes in use
+    private static final int[] LENGTHS = IntStream.concat(IntStream.rangeClosed(0, 70),
+            IntStream.of(127, 128, 129, 384, 768, 1023)).toArray();
+    private static final float TOLERANCE = 1e-4f;
+
+    private static VectorKernels simd;
+    private final VectorKernels scalar = new ScalarKernels();
+    private final Random random = new Random(11);
+
+    @BeforeAll
+    static void loadSimd() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "run with --add-modules jdk.incubator.vector");
+        simd = new SimdKernels();
+    }
+
+    @Test
+    void floatReductionsMatchScalar() {
+        for (int length : LENGTHS) {
+            float[] a = randomFloats(length);
+            float[] b = randomFloats(length);
+
+            assertClose(scalar.dot(a, b), simd.dot(a, b), length);
+            assertClose(scalar.sumOfSquares(a), simd.sumOfSquares(a), length);
+            float[] expected = scalar.dotAndNorms(a, b);
+            float[] actual = simd.dotAndNorms(a, b);
+            for (int i = 0; i < 3; i++) assertClose(expected[i], actual[i], length);
+        }
+    }
+
+    @Test
+    void elementWiseKernelsMatchScalarExactly() {
+        for (int length : LENGTHS) {
+            float[] a = randomFloats(length);
+            float[] b = randomFloats(length);
+            float[] expected = new float[length];
+            float[] actual = new float[length];
+
+            scalar.combine(a, 0.8f, b, -0.35f, expected);
+            simd.combine(a, 0.8f, b, -0.35f, actual);
+            assertArrayEquals(expected, actual, "combine, length " + length);
+
+            scalar.scale(a, 1.7f, expected);
+            simd.scale(a, 1.7f, actual);
+            assertArrayEquals(expected, actual, "scale, length " + length);
+        }
+    }
+
+    @Test
+    void int8DotMatchesScalarExactly() {
+        for (int length : LENGTHS) {
+            byte[] a = randomBytes(length + 5);
+            byte[] b = randomBytes(length + 5);
+            // Only the first length codes count, even if the arrays are longer
+            assertEquals(scalar.dotInt8(a, b, length), simd.dotInt8(a, b, length), "length " + length);
+        }
+        byte[] extremes = new byte[97];
+        Arrays.fill(extremes, Byte.MIN_VALUE);
+        assertEquals(scalar.dotInt8(extremes, extremes, 97), simd.dotInt8(extremes, extremes, 97));
+    }
+
+    private static void assertClose(float expected, float actual, int length) {
+        float tolerance = TOLERANCE * Math.max(1f, Math.abs(expected));
+        assertEquals(expected, actual, tolerance, "length " + length);
+    }
+
+    private float[] randomFloats(int length) {
+        float[] v = new float[length];
+        for (int i = 0; i < length; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] v = new byte[length];
+        random.nextBytes(v);
+        return v;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.repository.InteractionView;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InteractionCursorTest {
+
+    // Same order as UserInteractionRepository.NEWEST_FIRST
+    private static final Comparator<InteractionView> NEWEST_FIRST = Comparator.comparing(InteractionView::lastModified)
+            .thenComparing(InteractionView::interactionId).reversed();
+
+    @Test
+    void cursorRoundTripsTheLastRow() {
+        InteractionView row = view(42L, LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000));
+
+        RecommendationService.InteractionCursor cursor = RecommendationService.decodeCursor(RecommendationService.encodeCursor(row));
+
+        assertEquals(row.lastModified(), cursor.lastModified());
+        assertEquals(42L, cursor.interactionId());
+    }
+
+    @Test
+    void pagingVisitsEveryRowOnceWhenLastModifiedTies() {
+        // Many rows share a timestamp, so only the interaction ID keeps the pages apart
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<InteractionView> rows = new ArrayList<>();
+        for (long id = 1; id <= 23; id++) {
+            rows.add(view(id, base.plusSeconds(id / 5)));
+        }
+        rows.sort(NEWEST_FIRST);
+
+        List<InteractionView> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        while (true) {
+            Map<String, Object> page = RecommendationService.interactionPage(cursor, 4,
+                    pageable -> first(rows, pageable),
+                    (after, pageable) -> after(rows, after, pageable));
+            pages++;
+            @SuppressWarnings("unchecked")
+            List<InteractionView> items = (List<InteractionView>) page.get("items");
+            visited.addAll(items);
+            if (!(boolean) page.get("hasMore")) {
+                assertNull(page.get("nextCursor"));
+                break;
+            }
+            cursor = (String) page.get("nextCursor");
+        }
+
+        assertEquals(rows, visited);
+        assertEquals(6, pages);
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        String notBase64 = "not a cursor!";
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2025-01-01T12:00".getBytes(StandardCharsets.UTF_8));
+        String badDate = Base64.getUrlEncoder().encodeToString("yesterday|5".getBytes(StandardCharsets.UTF_8));
+        String badId = Base64.getUrlEncoder().encodeToString("2025-01-01T12:00|five".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of(notBase64, noSeparator, badDate, badId)) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> RecommendationService.interactionPage(cursor, 10, pageable -> List.of(), (after, pageable) -> List.of()));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void blankCursorStartsFromTheFirstPage() {
+        Map<String, Object> page = RecommendationService.interactionPage(" ", 10,
+                pageable -> List.of(view(1L, LocalDateTime.now())),
+                (after, pageable) -> { throw new AssertionError("expected the first page"); });
+
+        assertFalse((boolean) page.get("hasMore"));
+        assertEquals(1, ((List<?>) page.get("items")).size());
+    }
+
+    private static List<InteractionView> first(List<InteractionView> rows, Pageable pageable) {
+        return rows.stream().limit(pageable.getPageSize()).toList();
+    }
+
+    // In-memory version of UserInteractionRepository.AFTER_CURSOR
+    private static List<InteractionView> after(List<InteractionView> rows, RecommendationService.InteractionCursor after, Pageable pageable) {
+        return rows.stream()
+                .filter(row -> row.lastModified().isBefore(after.lastModified())
+                        || (row.lastModified().isEqual(after.lastModified()) && row.interactionId() < after.interactionId()))
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    private static InteractionView view(Long interactionId, LocalDateTime lastModified) {
+        return new InteractionView(interactionId, null, false, null, false, lastModified, null);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.enums.InteractionAction;
+import com.example.youtube_recommender.event.InteractionEvent;
+import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InteractionEventQueueTest {
+
+    private final RecommendationService recommendationService = mock(RecommendationService.class);
+    private final VectorIndexService vectorIndexService = mock(VectorIndexService.class);
+    private final VideoEmbeddingRepository videoEmbeddingRepository = mock(VideoEmbeddingRepository.class);
+    private final List<InteractionEvent> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(vectorIndexService.isReady()).thenReturn(true);
+        when(vectorIndexService.containsVideo(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).startsWith("v"));
+        doAnswer(invocation -> written.addAll(invocation.getArgument(1)))
+                .when(recommendationService).recordInteractions(anyLong(), any());
+    }
+
+    private InteractionEventQueue queue(int capacity) {
+        return new InteractionEventQueue(recommendationService, vectorIndexService, videoEmbeddingRepository,
+                new PipelineMetrics(new SimpleMeterRegistry()), capacity, 1000, 0);
+    }
+
+    @Test
+    void unknownVideoIsRejectedWithoutDatabaseLookup() {
+        InteractionEventQueue queue = queue(10);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> queue.submit(1L, "missing", InteractionAction.TOGGLE_LIKE));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        verify(videoEmbeddingRepository, never()).existsByVideoVideoId(anyString());
+    }
+
+    @Test
+    void fullQueueRejectsInsteadOfWritingOnTheCaller() {
+        InteractionEventQueue queue = queue(1);
+        queue.submit(1L, "v1", InteractionAction.TOGGLE_LIKE);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> queue.submit(1L, "v2", InteractionAction.TOGGLE_DISLIKE));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertEquals(0, written.size());
+        assertEquals(1, queue.pending());
+    }
+
+    @Test
+    void flushAppliesEachUsersEventsInOrder() {
+        InteractionEventQueue queue = queue(10);
+        queue.submit(1L, "v1", InteractionAction.TOGGLE_LIKE);
+        queue.submit(2L, "v2", InteractionAction.TOGGLE_LIKE);
+        queue.submit(1L, "v1", InteractionAction.TOGGLE_DISLIKE);
+
+        queue.flush();
+
+        assertEquals(List.of(1L, 1L, 2L), written.stream().map(InteractionEvent::userId).toList());
+        assertEquals(List.of(InteractionAction.TOGGLE_LIKE, InteractionAction.TOGGLE_DISLIKE),
+                written.subList(0, 2).stream().map(InteractionEvent::action).toList());
+    }
+}
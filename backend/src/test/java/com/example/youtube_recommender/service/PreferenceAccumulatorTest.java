@@ -0,0 +1,148 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.model.User;
+import com.example.youtube_recommender.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PreferenceAccumulatorTest {
+
+    private static final long USER_ID = 1L;
+    private static final int DIMENSIONS = 8;
+    private static final float TOLERANCE = 1e-5f;
+
+    private final Random random = new Random(17);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // The users row: preference_embedding and preference_version
+    private float[] stored;
+    private long version;
+    private PreferenceAccumulator accumulator;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(USER_ID)).thenAnswer(invocation -> Optional.of(loadUser()));
+        when(userRepository.updatePreference(eq(USER_ID), any(), anyLong())).thenAnswer(invocation -> {
+            if (invocation.<Long>getArgument(2) != version) return 0;
+            stored = invocation.getArgument(1);
+            version++;
+            return 1;
+        });
+        accumulator = new PreferenceAccumulator(userRepository, event -> {}, mock(PlatformTransactionManager.class),
+                new PipelineMetrics(registry), Duration.ofMinutes(30));
+    }
+
+    @Test
+    void composedStepsMatchSequentialEma() {
+        stored = randomVector();
+        List<PreferenceAccumulator.Step> steps = randomSteps(25);
+
+        // Mix single steps and batches; the result must not depend on how they were grouped
+        User user = loadUser();
+        accumulator.apply(user, steps.subList(0, 1));
+        accumulator.apply(user, steps.subList(1, 10));
+        for (PreferenceAccumulator.Step step : steps.subList(10, 25)) {
+            accumulator.apply(user, List.of(step));
+        }
+
+        float[] expected = sequential(stored, steps);
+        assertArrayEquals(expected, accumulator.current(user), TOLERANCE);
+
+        accumulator.flush();
+        assertEquals(1, version);
+        assertArrayEquals(expected, stored, TOLERANCE);
+    }
+
+    @Test
+    void firstStepWithoutPreferenceStartsFromTheVideo() {
+        stored = null;
+        List<PreferenceAccumulator.Step> steps = randomSteps(5);
+
+        float[] current = accumulator.apply(loadUser(), steps);
+
+        assertArrayEquals(sequential(null, steps), current, TOLERANCE);
+    }
+
+    @Test
+    void versionConflictReplaysPendingStepsOnTheWinningVector() {
+        stored = randomVector();
+        User user = loadUser();
+        List<PreferenceAccumulator.Step> steps = randomSteps(6);
+        accumulator.apply(user, steps);
+
+        // Another node persists its vector first
+        float[] theirs = randomVector();
+        stored = theirs;
+        version = 1;
+
+        accumulator.flush();
+        assertEquals(1, version, "the stale write must not overwrite the other node's vector");
+        assertEquals(1.0, registry.get(PipelineMetrics.PREFERENCE_WRITES).tag("outcome", "conflict").counter().count());
+        float[] expected = sequential(theirs, steps);
+        assertArrayEquals(expected, accumulator.current(user), TOLERANCE);
+
+        accumulator.flush();
+        assertEquals(2, version);
+        assertArrayEquals(expected, stored, TOLERANCE);
+    }
+
+    @Test
+    void refreshReappliesPendingStepsOnANewerVector() {
+        stored = randomVector();
+        User user = loadUser();
+        List<PreferenceAccumulator.Step> steps = randomSteps(3);
+        accumulator.apply(user, steps);
+
+        float[] theirs = randomVector();
+        stored = theirs;
+        version = 4;
+
+        assertArrayEquals(sequential(theirs, steps), accumulator.refresh(USER_ID), TOLERANCE);
+        accumulator.flush();
+        assertEquals(5, version);
+    }
+
+    private User loadUser() {
+        return User.builder().userId(USER_ID).preferenceEmbedding(stored).preferenceVersion(version).build();
+    }
+
+    private static float[] sequential(float[] start, List<PreferenceAccumulator.Step> steps) {
+        float[] preference = start;
+        for (PreferenceAccumulator.Step step : steps) {
+            preference = RecommendationService.updatePreference(preference, step.video(), step.weight());
+        }
+        return preference;
+    }
+
+    private List<PreferenceAccumulator.Step> randomSteps(int count) {
+        float[] weights = {1.0f, 0.8f, 0.5f, 0.2f, -0.5f};
+        List<PreferenceAccumulator.Step> steps = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            steps.add(new PreferenceAccumulator.Step(randomVector(), weights[random.nextInt(weights.length)]));
+        }
+        return steps;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) vector[i] = (float) random.nextGaussian();
+        return vector;
+    }
+}
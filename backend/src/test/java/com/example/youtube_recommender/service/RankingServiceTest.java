@@ -0,0 +1,152 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.ranking.Candidate;
+import com.example.youtube_recommender.ranking.RankerStage;
+import com.example.youtube_recommender.ranking.RankingContext;
+import com.example.youtube_recommender.repository.VideoFeatures;
+import com.example.youtube_recommender.repository.VideoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RankingServiceTest {
+
+    private final VideoRepository videoRepository = mock(VideoRepository.class);
+    private final List<RankingService> services = new ArrayList<>();
+
+    private RankingService service(RankerStage... stages) {
+        return service(1000, stages);
+    }
+
+    private RankingService service(long budgetMs, RankerStage... stages) {
+        RankingService service = new RankingService(videoRepository, List.of(stages),
+                new PipelineMetrics(new SimpleMeterRegistry()), true, 200, budgetMs, 0.25);
+        services.add(service);
+        return service;
+    }
+
+    private static List<Candidate> firstStage(String... videoIds) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (String videoId : videoIds) {
+            candidates.add(new Candidate(videoId, candidates.size(), 0.8 - 0.01 * candidates.size()));
+        }
+        return candidates;
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(RankingService::close);
+    }
+
+    // Pushes one video as far up as the stages can and every other one as far down
+    private static RankerStage favoring(String videoId) {
+        return stage("favor", (context, candidates) -> {
+            for (Candidate candidate : candidates) {
+                candidate.adjust(candidate.videoId().equals(videoId) ? 1.0 : -1.0);
+            }
+        });
+    }
+
+    private static RankerStage stage(String name, BiConsumer<RankingContext, List<Candidate>> body) {
+        return new RankerStage() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void apply(RankingContext context, List<Candidate> candidates) {
+                body.accept(context, candidates);
+            }
+        };
+    }
+
+    @Test
+    void stagesCannotLiftAWeakMatchOverAStrongOne() {
+        List<Candidate> candidates = List.of(
+                new Candidate("strong", 0, 0.82),
+                new Candidate("weak", 1, 0.45));
+
+        List<String> ranked = service(favoring("weak")).rank(1L, "q", candidates, 2);
+
+        assertEquals(List.of("strong", "weak"), ranked);
+    }
+
+    @Test
+    void stagesReorderCandidatesOfSimilarRelevance() {
+        List<Candidate> candidates = List.of(
+                new Candidate("first", 0, 0.80),
+                new Candidate("second", 1, 0.74));
+
+        List<String> ranked = service(favoring("second")).rank(1L, "q", candidates, 2);
+
+        assertEquals(List.of("second", "first"), ranked);
+    }
+
+    @Test
+    void adjustmentIsClampedToTheConfiguredBound() {
+        RankingService service = service();
+        Candidate boosted = new Candidate("a", 0, 0.5);
+        boosted.adjust(0.4);
+        boosted.adjust(0.3);
+
+        assertEquals(0.5 * 1.25, service.finalScore(boosted), 1e-12);
+    }
+
+    @Test
+    void stagesRunInOrderOnTheLoadedFeatures() {
+        when(videoRepository.findFeaturesByIds(any())).thenReturn(List.of(
+                new VideoFeatures("b", 5_000_000L, null, 600)));
+        List<String> applied = new CopyOnWriteArrayList<>();
+        RankerStage first = stage("first", (context, candidates) -> applied.add("first"));
+        RankerStage popular = stage("popular", (context, candidates) -> {
+            applied.add("popular");
+            for (Candidate candidate : candidates) {
+                if (candidate.features() != null) candidate.adjust(0.1);
+            }
+        });
+
+        List<String> ranked = service(first, popular).rank(1L, "q", firstStage("a", "b", "c"), 3);
+
+        assertEquals(List.of("first", "popular"), applied);
+        assertEquals(List.of("b", "a", "c"), ranked);
+    }
+
+    @Test
+    void timeoutFallsBackToFirstStageOrder() {
+        RankerStage slow = stage("slow", (context, candidates) -> {
+            candidates.getLast().adjust(1.0);
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        List<String> ranked = service(50, slow).rank(1L, "q", firstStage("a", "b", "c"), 2);
+
+        assertEquals(List.of("a", "b"), ranked);
+    }
+
+    @Test
+    void failingStageFallsBackToFirstStageOrder() {
+        RankerStage boostLast = stage("boost-last", (context, candidates) -> candidates.getLast().adjust(1.0));
+        RankerStage broken = stage("broken", (context, candidates) -> {
+            throw new IllegalStateException("feature store down");
+        });
+
+        List<String> ranked = service(boostLast, broken).rank(1L, "q", firstStage("a", "b", "c"), 3);
+
+        assertEquals(List.of("a", "b", "c"), ranked);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.youtube_recommender.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReciprocalRankFusionTest {
+
+    private static final int K = 60;
+
+    @Test
+    void itemsRankedByBothListsComeFirst() {
+        List<String> vector = List.of("a", "b", "c", "d");
+        List<String> lexical = List.of("c", "e", "a");
+
+        List<String> fused = RecommendationService.reciprocalRankFusion(List.of(vector, lexical), K, 10);
+
+        // a: 1/61 + 1/63, c: 1/63 + 1/61, then b: 1/62, e: 1/62, d: 1/64
+        assertEquals(List.of("a", "c", "b", "e", "d"), fused);
+    }
+
+    @Test
+    void tiesKeepFirstSeenOrderAndLimitApplies() {
+        List<String> first = List.of("x", "y");
+        List<String> second = List.of("z", "w");
+
+        List<String> fused = RecommendationService.reciprocalRankFusion(List.of(first, second), K, 3);
+
+        assertEquals(List.of("x", "z", "y"), fused);
+    }
+
+    @Test
+    void singleRankingKeepsItsOrder() {
+        List<String> only = List.of("p", "q", "r");
+
+        List<String> fused = RecommendationService.reciprocalRankFusion(List.of(only), K, 10);
+
+        assertEquals(only, fused);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.repository.VideoEmbeddingRepository;
+import com.example.youtube_recommender.repository.VideoRepository;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoSnippet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VideoIngestionServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final YouTubeService youTubeService = mock(YouTubeService.class);
+    private final ChatModel chatModel = mock(ChatModel.class);
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private VideoIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        VideoRepository videoRepository = mock(VideoRepository.class);
+        when(videoRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        VideoEmbeddingRepository videoEmbeddingRepository = mock(VideoEmbeddingRepository.class);
+        when(videoEmbeddingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        LlmResultCache llmResultCache = mock(LlmResultCache.class);
+        when(llmResultCache.summary(anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<String>>getArgument(1).get());
+        when(llmResultCache.embeddings(any())).thenReturn(Map.of());
+
+        ingestionService = new VideoIngestionService(youTubeService, videoRepository, mock(KnownVideoIdFilter.class),
+                videoEmbeddingRepository, mock(ReducedEmbeddingService.class), chatModel, embeddingModel,
+                mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class),
+                new PipelineMetrics(registry), llmResultCache, 2, 2, 16);
+    }
+
+    private static Video video(String id) {
+        return new Video().setId(id).setSnippet(new VideoSnippet().setTitle("title " + id).setDescription("about " + id));
+    }
+
+    private double videos(String outcome) {
+        return registry.get(PipelineMetrics.INGEST_VIDEOS).tags("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void countsOnlyStageFailuresAsFailed() {
+        // "missing" is not returned by YouTube, "broken" fails to summarize, "unembeddable" fails to embed
+        when(youTubeService.getVideoDetails(anyList())).thenReturn(List.of(video("ok"), video("broken"), video("unembeddable")));
+        when(chatModel.call(anyString())).thenAnswer(invocation -> {
+            String prompt = invocation.getArgument(0);
+            if (prompt.contains("about broken")) throw new IllegalStateException("model down");
+            return prompt.contains("about ok") ? "summary ok" : "summary unembeddable";
+        });
+        when(embeddingModel.embedForResponse(anyList())).thenThrow(new IllegalStateException("batch rejected"));
+        when(embeddingModel.embed(anyString())).thenAnswer(invocation -> {
+            if (invocation.<String>getArgument(0).contains("summary unembeddable")) throw new IllegalStateException("too long");
+            return new float[] {1f, 0f};
+        });
+
+        List<String> saved = ingestionService.ingestByIds(List.of("ok", "broken", "unembeddable", "missing"));
+
+        assertEquals(List.of("ok"), saved);
+        assertEquals(1.0, videos("saved"));
+        assertEquals(2.0, videos("failed"));
+        assertEquals(1.0, videos("not_found"));
+        assertEquals(1.0, registry.get(PipelineMetrics.INGEST_FAILURES).tags("stage", "summarize").counter().count());
+        assertEquals(1.0, registry.get(PipelineMetrics.INGEST_FAILURES).tags("stage", "embed").counter().count());
+    }
+
+    @Test
+    void individualEmbeddingRetriesAreTimed() {
+        when(youTubeService.getVideoDetails(anyList())).thenReturn(List.of(video("a"), video("b")));
+        when(chatModel.call(anyString())).thenReturn("summary");
+        when(embeddingModel.embedForResponse(anyList())).thenThrow(new IllegalStateException("batch rejected"));
+        when(embeddingModel.embed(anyString())).thenReturn(new float[] {1f, 0f});
+
+        ingestionService.ingestByIds(List.of("a", "b"));
+
+        // One failed batch call plus one retry per video
+        assertEquals(1, registry.get(PipelineMetrics.EMBEDDINGS_MODEL)
+                .tags("source", "ingest", "outcome", "error").timer().count());
+        assertEquals(2, registry.get(PipelineMetrics.EMBEDDINGS_MODEL)
+                .tags("source", "ingest", "outcome", "success").timer().count());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.youtube_recommender.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YouTubeResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static final String BODY = "x".repeat(1000);
+
+    private void age(Path file, Duration age) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+    }
+
+    @Test
+    void pruneDeletesEntriesPastRetention() throws IOException {
+        YouTubeResponseCache cache = new YouTubeResponseCache(true, directory.toString(), Duration.ofDays(7), DataSize.ofMegabytes(10));
+        cache.put("old", "etag", BODY);
+        age(cache.fileFor("old"), Duration.ofDays(8));
+        cache.put("new", "etag", BODY);
+
+        assertEquals(1, cache.prune());
+        assertTrue(cache.get("old").isEmpty());
+        assertTrue(cache.get("new").isPresent());
+    }
+
+    @Test
+    void pruneDeletesOldestEntriesBeyondMaxSize() throws IOException {
+        // Each entry is ~1 KB; keep at most two
+        YouTubeResponseCache cache = new YouTubeResponseCache(true, directory.toString(), Duration.ofDays(7), DataSize.ofBytes(2100));
+        for (int i = 0; i < 4; i++) {
+            cache.put("k" + i, "etag", BODY);
+            age(cache.fileFor("k" + i), Duration.ofMinutes(10 - i));
+        }
+
+        assertEquals(2, cache.prune());
+        assertTrue(cache.get("k0").isEmpty());
+        assertTrue(cache.get("k1").isEmpty());
+        assertTrue(cache.get("k2").isPresent());
+        assertTrue(cache.get("k3").isPresent());
+    }
+
+    @Test
+    void pruneRemovesAbandonedTempFiles() throws IOException {
+        YouTubeResponseCache cache = new YouTubeResponseCache(true, directory.toString(), Duration.ofDays(7), DataSize.ofMegabytes(10));
+        Path abandoned = Files.createTempFile(directory, "yt", ".tmp");
+        age(abandoned, Duration.ofHours(2));
+
+        cache.prune();
+
+        assertFalse(Files.exists(abandoned));
+    }
+}
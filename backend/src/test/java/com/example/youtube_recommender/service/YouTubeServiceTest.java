@@ -0,0 +1,190 @@
+package com.example.youtube_recommender.service;
+
+import com.example.youtube_recommender.config.YouTubeConfig;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.youtube.model.SearchResult;
+import com.google.api.services.youtube.model.Video;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs the YouTube client against a {@link MockHttpTransport} that replaces the real transport as a
+ * {@code @Primary} bean. Only the YouTube beans are started, so no database is needed.
+ */
+@SpringBootTest(classes = {YouTubeConfig.class, YouTubeService.class, YouTubeResponseCache.class,
+        PipelineMetrics.class, YouTubeServiceTest.MockYouTube.class})
+class YouTubeServiceTest {
+
+    private static final String ETAG = "\"etag-1\"";
+
+    @TempDir
+    static Path cacheDir;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("youtube.api.key", () -> "test-key");
+        registry.add("recommender.youtube.cache.dir", () -> cacheDir.toString());
+        // Every request goes to the transport, with If-None-Match once an ETag is cached
+        registry.add("recommender.youtube.cache.max-age", () -> "PT0S");
+    }
+
+    /**
+     * A request the fake API answered, with its parsed URL and If-None-Match header.
+     */
+    record Call(GenericUrl url, String ifNoneMatch) {}
+
+    @TestConfiguration
+    static class MockYouTube {
+
+        final List<Call> calls = new CopyOnWriteArrayList<>();
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        @Primary
+        HttpTransport mockYoutubeTransport() {
+            return new MockHttpTransport() {
+                @Override
+                public LowLevelHttpRequest buildRequest(String method, String url) {
+                    return new MockLowLevelHttpRequest(url) {
+                        @Override
+                        public LowLevelHttpResponse execute() {
+                            String ifNoneMatch = getFirstHeaderValue("If-None-Match");
+                            GenericUrl parsed = new GenericUrl(getUrl());
+                            calls.add(new Call(parsed, ifNoneMatch));
+                            return respond(parsed, ifNoneMatch);
+                        }
+                    };
+                }
+            };
+        }
+
+        private static LowLevelHttpResponse respond(GenericUrl url, String ifNoneMatch) {
+            if (url.getRawPath().endsWith("/search")) {
+                return json(search((String) url.getFirst("q"), (String) url.getFirst("pageToken"),
+                        Integer.parseInt((String) url.getFirst("maxResults"))));
+            }
+            if (ETAG.equals(ifNoneMatch)) {
+                return new MockLowLevelHttpResponse().setStatusCode(304);
+            }
+            List<String> ids = ids(url);
+            String items = ids.stream().map(id -> "{\"id\":\"" + id + "\"}").collect(Collectors.joining(","));
+            return json("{\"items\":[" + items + "]}").addHeader("ETag", ETAG);
+        }
+
+        // Pages of at most maxResults items; the query "paged" has 70 results in total
+        private static String search(String query, String pageToken, int maxResults) {
+            int offset = pageToken == null ? 0 : Integer.parseInt(pageToken);
+            int total = "paged".equals(query) ? 70 : 0;
+            int end = Math.min(total, offset + maxResults);
+            String items = IntStream.range(offset, end)
+                    .mapToObj(i -> "{\"id\":{\"kind\":\"youtube#video\",\"videoId\":\"v" + i + "\"}}")
+                    .collect(Collectors.joining(","));
+            String next = end < total ? ",\"nextPageToken\":\"" + end + "\"" : "";
+            return "{\"items\":[" + items + "]" + next + "}";
+        }
+
+        // The client sends a list parameter as repeated id=... pairs
+        static List<String> ids(GenericUrl url) {
+            return url.getAll("id").stream()
+                    .flatMap(value -> Stream.of(value.toString().split(",")))
+                    .toList();
+        }
+
+        private static MockLowLevelHttpResponse json(String body) {
+            return new MockLowLevelHttpResponse().setContentType(Json.MEDIA_TYPE).setContent(body);
+        }
+    }
+
+    @Autowired
+    private YouTubeService youTubeService;
+
+    @Autowired
+    private MockYouTube api;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        api.calls.clear();
+    }
+
+    @Test
+    void searchFollowsNextPageTokenUpToMaxResults() {
+        List<SearchResult> results = youTubeService.searchVideos("paged", 60);
+
+        assertEquals(60, results.size());
+        assertEquals("v0", results.getFirst().getId().getVideoId());
+        assertEquals("v59", results.getLast().getId().getVideoId());
+        assertEquals(2, api.calls.size());
+        assertNull(api.calls.get(0).url().getFirst("pageToken"));
+        assertEquals("50", api.calls.get(0).url().getFirst("maxResults"));
+        assertEquals("50", api.calls.get(1).url().getFirst("pageToken"));
+        assertEquals("10", api.calls.get(1).url().getFirst("maxResults"));
+        // The API key is sent but is not part of the cache key
+        assertEquals("test-key", api.calls.get(0).url().getFirst("key"));
+    }
+
+    @Test
+    void videoDetailsAreFetchedInChunksOfFiftyInOrder() {
+        List<String> ids = IntStream.range(0, 120).mapToObj(i -> "chunk" + i).toList();
+
+        List<Video> videos = youTubeService.getVideoDetails(ids);
+
+        assertEquals(ids, videos.stream().map(Video::getId).toList());
+        List<Integer> chunkSizes = new ArrayList<>();
+        for (Call call : api.calls) {
+            chunkSizes.add(MockYouTube.ids(call.url()).size());
+        }
+        chunkSizes.sort(null);
+        assertEquals(List.of(20, 50, 50), chunkSizes);
+    }
+
+    @Test
+    void staleEntryIsRevalidatedWithItsEtag() {
+        List<String> ids = List.of("etag-a", "etag-b");
+
+        List<Video> first = youTubeService.getVideoDetails(ids);
+        List<Video> second = youTubeService.getVideoDetails(ids);
+
+        assertEquals(2, api.calls.size());
+        assertNull(api.calls.get(0).ifNoneMatch());
+        assertEquals(ETAG, api.calls.get(1).ifNoneMatch());
+        // The 304 reused the cached body
+        assertEquals(first.stream().map(Video::getId).toList(), second.stream().map(Video::getId).toList());
+        assertEquals(1.0, meterRegistry.get(PipelineMetrics.YOUTUBE_CACHE)
+                .tags("operation", "videos.list", "result", "revalidated").counter().count());
+    }
+}
@@ -18,9 +18,10 @@ export const endpoints = {
   interact: (data) => api.post("/interactions", data),
   deleteInteraction: (userId, videoId) =>
     api.delete(`/interactions?userId=${userId}&videoId=${videoId}`),
-  history: (userId) =>
-    api.get(`/interactions/history?userId=${userId}&limit=50`),
-  watchLater: (userId) => api.get(`/interactions/watch-later?userId=${userId}`),
+  history: (userId, cursor) =>
+    api.get(`/interactions/history?userId=${userId}&limit=50${cursor ? `&cursor=${cursor}` : ''}`),
+  watchLater: (userId, cursor) =>
+    api.get(`/interactions/watch-later?userId=${userId}&limit=50${cursor ? `&cursor=${cursor}` : ''}`),
 
   // NEW: Get User Profile
   getUser: (userId) => api.get(`/users/${userId}`),
@@ -15,7 +15,7 @@ const Admin = () => {
     
     try {
       const res = await endpoints.ingest(topic, max);
-      setMessage(res.data); // "Successfully ingested..."
+      setMessage(res.data); // "Queued ingestion job ..."
     } catch (err) {
       console.error(err);
       setMessage("Error: Could not ingest videos. Check backend logs.");
@@ -6,30 +6,36 @@ import { History, Clock, AlertCircle } from 'lucide-react';
 const Library = ({ type }) => {
   const [items, setItems] = useState([]); 
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
 
   useEffect(() => {
     fetchData();
   }, [type]);
 
-  const fetchData = async () => {
-    setLoading(true);
-    setItems([]);
+  const fetchData = async (cursor = null) => {
+    if (!cursor) {
+      setLoading(true);
+      setItems([]);
+    }
     try {
       let res;
       if (type === 'history') {
-          res = await endpoints.history(CURRENT_USER_ID);
+          res = await endpoints.history(CURRENT_USER_ID, cursor);
       } else {
-          res = await endpoints.watchLater(CURRENT_USER_ID);
+          res = await endpoints.watchLater(CURRENT_USER_ID, cursor);
       }
       
-      // Deduplicate by Video ID
-      const uniqueItemsMap = new Map();
-      res.data.forEach(item => {
-          if (item.video && item.video.videoId) {
-              uniqueItemsMap.set(item.video.videoId, item);
-          }
+      // Deduplicate by Video ID (pages are appended)
+      setItems(prev => {
+          const uniqueItemsMap = new Map();
+          [...(cursor ? prev : []), ...res.data.items].forEach(item => {
+              if (item.video && item.video.videoId) {
+                  uniqueItemsMap.set(item.video.videoId, item);
+              }
+          });
+          return Array.from(uniqueItemsMap.values());
       });
-      setItems(Array.from(uniqueItemsMap.values()));
+      setNextCursor(res.data.nextCursor);
 
     } catch (err) {
       console.error(err);
@@ -80,6 +86,12 @@ const Library = ({ type }) => {
                    </div>
                 ))}
             </div>
+
+            {nextCursor && (
+                <button onClick={() => fetchData(nextCursor)} className="mt-6 w-full py-2 rounded-lg bg-[#272727] text-gray-300 hover:bg-[#3f3f3f] transition-colors">
+                    Load more
+                </button>
+            )}
             
             {items.length === 0 && (
                 <div className="text-center mt-20 text-gray-500 flex flex-col items-center">